@@ -6,6 +6,10 @@ import fava.Functions.IF1;
 /**
  * Functions for functional composition. 
  * 
+ * <p>Composed functions are flat: {@code _(f1, f2, f3)} is a single function which holds the
+ * array of stages and applies them in a loop, rather than a chain of nested closures, and
+ * composing a composed function appends its stages instead of wrapping it.
+ * 
  * @author dagang.wei (weidagang@gmail.com)
  */
 public class Composing {
@@ -15,12 +19,7 @@ public class Composing {
    * <p>_ :: (T -> U) -> (U -> R) -> T -> R
    */
   public static <T, U, R> F1<T, R> _(final IF1<T, U> f1, final IF1<U, R> f2) {
-    return new F1<T, R>() {
-      @Override
-      public R apply(T arg) {
-        return f2.apply(f1.apply(arg));
-      }
-    };
+    return compose(f1, f2);
   }
 
   /**
@@ -29,7 +28,7 @@ public class Composing {
    * <p>_(f1, f2, f3) = _(_(f1, f2), f3)
    */
   public static <T, U1, U2, R> F1<T, R> _(final IF1<T, U1> f1, final IF1<U1, U2> f2, final IF1<U2, R> f3) {
-    return _(_(f1, f2), f3);
+    return compose(f1, f2, f3);
   }
 
   /**
@@ -42,7 +41,7 @@ public class Composing {
       final IF1<U1, U2> f2, 
       final IF1<U2, U3> f3,
       final IF1<U3, R> f4) {
-    return _(_(f1, f2, f3), f4);
+    return compose(f1, f2, f3, f4);
   }
 
   /**
@@ -56,13 +55,13 @@ public class Composing {
       final IF1<U2, U3> f3,
       final IF1<U3, U4> f4,
       final IF1<U4, R> f5) {
-    return _(_(f1, f2, f3, f4), f5);
+    return compose(f1, f2, f3, f4, f5);
   }
 
   /**
    * Composes 6 functions into one function.
    * 
-   * <p>_(f1, f2, f3, f4, f5, f6) = _(_(f1, f2, f3, f4, f5, f6)
+   * <p>_(f1, f2, f3, f4, f5, f6) = _(_(f1, f2, f3, f4, f5), f6)
    */
   public static <T, U1, U2, U3, U4, U5, R> F1<T, R> _(
       final IF1<T, U1> f1, 
@@ -71,6 +70,56 @@ public class Composing {
       final IF1<U3, U4> f4,
       final IF1<U4, U5> f5,
       final IF1<U5, R> f6) {
-    return _(_(f1, f2, f3, f4, f5), f6);
+    return compose(f1, f2, f3, f4, f5, f6);
+  }
+
+  /**
+   * Composes any number of functions into one function, applied from left to right. The types
+   * of adjacent functions are not checked, so prefer the fixed arity versions when they fit.
+   * 
+   * <p>_(f1, f2, ..., fn) = _(_(f1, f2, ..., fn-1), fn)
+   */
+  public static <T, R> F1<T, R> _(IF1<?, ?>... functions) {
+    return compose(functions);
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static <T, R> F1<T, R> compose(IF1<?, ?>... functions) {
+    int size = 0;
+    for (IF1<?, ?> f : functions) {
+      size += f instanceof Pipeline ? ((Pipeline)f).stages.length : 1;
+    }
+    IF1<Object, Object>[] stages = new IF1[size];
+    int i = 0;
+    for (IF1<?, ?> f : functions) {
+      if (f instanceof Pipeline) {
+        IF1<Object, Object>[] nested = ((Pipeline)f).stages;
+        System.arraycopy(nested, 0, stages, i, nested.length);
+        i += nested.length;
+      } else {
+        stages[i++] = (IF1<Object, Object>)f;
+      }
+    }
+    return (F1<T, R>)new Pipeline(stages);
+  }
+
+  /**
+   * A composed function, which passes the argument through its stages in a loop.
+   */
+  private static final class Pipeline extends F1<Object, Object> {
+    final IF1<Object, Object>[] stages;
+
+    Pipeline(IF1<Object, Object>[] stages) {
+      this.stages = stages;
+    }
+
+    @Override
+    public Object apply(Object arg) {
+      Object value = arg;
+      for (IF1<Object, Object> stage : stages) {
+        value = stage.apply(value);
+      }
+      return value;
+    }
   }
 }
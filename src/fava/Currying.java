@@ -1,8 +1,14 @@
 package fava;
 
+import fava.Functions.DoubleIF1;
+import fava.Functions.DoubleIF2;
 import fava.Functions.IF1;
 import fava.Functions.IF2;
 import fava.Functions.IF3;
+import fava.Functions.IntIF1;
+import fava.Functions.IntIF2;
+import fava.Functions.LongIF1;
+import fava.Functions.LongIF2;
 
 /**
  * Functions for currying.
@@ -33,12 +39,7 @@ public final class Currying {
 
     @Override
     public final F1<T2, R> apply(final T1 arg1) {
-      return new F1<T2, R>() {
-        @Override
-        public R apply(T2 arg2) {
-          return F2.this.apply(arg1, arg2);
-        };
-      };
+      return new Bound2<T1, T2, R>(this, arg1);
     }
   }
 
@@ -57,12 +58,44 @@ public final class Currying {
 
     @Override
     public final F2<T2, T3, R> apply(final T1 arg1) {
-      return new F2<T2, T3, R>() {
-        @Override
-        public R apply(T2 arg2, T3 arg3) {
-          return F3.this.apply(arg1, arg2, arg3);
-        }
-      };
+      return new Bound3<T1, T2, T3, R>(this, arg1);
+    }
+  }
+
+  /**
+   * {@code F2} with its first argument bound. It only holds the function and the argument, so
+   * when a partial application doesn't escape, the JIT can scalar-replace it.
+   */
+  private static final class Bound2<T1, T2, R> extends F1<T2, R> {
+    private final F2<T1, T2, R> f;
+    private final T1 arg1;
+
+    Bound2(F2<T1, T2, R> f, T1 arg1) {
+      this.f = f;
+      this.arg1 = arg1;
+    }
+
+    @Override
+    public R apply(T2 arg2) {
+      return f.apply(arg1, arg2);
+    }
+  }
+
+  /**
+   * {@code F3} with its first argument bound.
+   */
+  private static final class Bound3<T1, T2, T3, R> extends F2<T2, T3, R> {
+    private final F3<T1, T2, T3, R> f;
+    private final T1 arg1;
+
+    Bound3(F3<T1, T2, T3, R> f, T1 arg1) {
+      this.f = f;
+      this.arg1 = arg1;
+    }
+
+    @Override
+    public R apply(T2 arg2, T3 arg3) {
+      return f.apply(arg1, arg2, arg3);
     }
   }
 
@@ -84,6 +117,123 @@ public final class Currying {
   public static abstract class P3<T> extends F3<T, T, T, T> {
   }
 
+  /**
+   * Function of type int -> int, without boxing.
+   */
+  public static abstract class IntF1 implements IntIF1 {
+    @Override
+    public abstract int apply(int arg);
+  }
+
+  /**
+   * Function of type int -> int -> int, without boxing. Like {@code F2}, it is curried:
+   * applying it to one argument returns an {@code IntF1}.
+   */
+  public static abstract class IntF2 implements IntIF2 {
+    @Override
+    public abstract int apply(int arg1, int arg2);
+
+    public final IntF1 apply(int arg1) {
+      return new IntBound2(this, arg1);
+    }
+  }
+
+  /**
+   * Function of type long -> long, without boxing.
+   */
+  public static abstract class LongF1 implements LongIF1 {
+    @Override
+    public abstract long apply(long arg);
+  }
+
+  /**
+   * Function of type long -> long -> long, without boxing. Like {@code F2}, it is curried:
+   * applying it to one argument returns an {@code LongF1}.
+   */
+  public static abstract class LongF2 implements LongIF2 {
+    @Override
+    public abstract long apply(long arg1, long arg2);
+
+    public final LongF1 apply(long arg1) {
+      return new LongBound2(this, arg1);
+    }
+  }
+
+  /**
+   * Function of type double -> double, without boxing.
+   */
+  public static abstract class DoubleF1 implements DoubleIF1 {
+    @Override
+    public abstract double apply(double arg);
+  }
+
+  /**
+   * Function of type double -> double -> double, without boxing. Like {@code F2}, it is curried:
+   * applying it to one argument returns an {@code DoubleF1}.
+   */
+  public static abstract class DoubleF2 implements DoubleIF2 {
+    @Override
+    public abstract double apply(double arg1, double arg2);
+
+    public final DoubleF1 apply(double arg1) {
+      return new DoubleBound2(this, arg1);
+    }
+  }
+
+  /**
+   * {@code IntF2} with its first argument bound.
+   */
+  private static final class IntBound2 extends IntF1 {
+    private final IntF2 f;
+    private final int arg1;
+
+    IntBound2(IntF2 f, int arg1) {
+      this.f = f;
+      this.arg1 = arg1;
+    }
+
+    @Override
+    public int apply(int arg2) {
+      return f.apply(arg1, arg2);
+    }
+  }
+
+  /**
+   * {@code LongF2} with its first argument bound.
+   */
+  private static final class LongBound2 extends LongF1 {
+    private final LongF2 f;
+    private final long arg1;
+
+    LongBound2(LongF2 f, long arg1) {
+      this.f = f;
+      this.arg1 = arg1;
+    }
+
+    @Override
+    public long apply(long arg2) {
+      return f.apply(arg1, arg2);
+    }
+  }
+
+  /**
+   * {@code DoubleF2} with its first argument bound.
+   */
+  private static final class DoubleBound2 extends DoubleF1 {
+    private final DoubleF2 f;
+    private final double arg1;
+
+    DoubleBound2(DoubleF2 f, double arg1) {
+      this.f = f;
+      this.arg1 = arg1;
+    }
+
+    @Override
+    public double apply(double arg2) {
+      return f.apply(arg1, arg2);
+    }
+  }
+
   /**
    * Turns a function into the curried form.
    */
@@ -126,6 +276,90 @@ public final class Currying {
     };
   }
 
+  /**
+   * Turns a function on {@code int} into the curried form.
+   */
+  public static IntF1 curryInt(final IntIF1 f) {
+    assert f != null;
+
+    return new IntF1() {
+      @Override
+      public int apply(int arg) {
+        return f.apply(arg);
+      }
+    };
+  }
+
+  /**
+   * Turns a function on {@code int} into the curried form.
+   */
+  public static IntF2 curryInt(final IntIF2 f) {
+    assert f != null;
+
+    return new IntF2() {
+      @Override
+      public int apply(int arg1, int arg2) {
+        return f.apply(arg1, arg2);
+      }
+    };
+  }
+
+  /**
+   * Turns a function on {@code long} into the curried form.
+   */
+  public static LongF1 curryLong(final LongIF1 f) {
+    assert f != null;
+
+    return new LongF1() {
+      @Override
+      public long apply(long arg) {
+        return f.apply(arg);
+      }
+    };
+  }
+
+  /**
+   * Turns a function on {@code long} into the curried form.
+   */
+  public static LongF2 curryLong(final LongIF2 f) {
+    assert f != null;
+
+    return new LongF2() {
+      @Override
+      public long apply(long arg1, long arg2) {
+        return f.apply(arg1, arg2);
+      }
+    };
+  }
+
+  /**
+   * Turns a function on {@code double} into the curried form.
+   */
+  public static DoubleF1 curryDouble(final DoubleIF1 f) {
+    assert f != null;
+
+    return new DoubleF1() {
+      @Override
+      public double apply(double arg) {
+        return f.apply(arg);
+      }
+    };
+  }
+
+  /**
+   * Turns a function on {@code double} into the curried form.
+   */
+  public static DoubleF2 curryDouble(final DoubleIF2 f) {
+    assert f != null;
+
+    return new DoubleF2() {
+      @Override
+      public double apply(double arg1, double arg2) {
+        return f.apply(arg1, arg2);
+      }
+    };
+  }
+
   /**
    * Turns a curried function which accepts only one argument each time into a function which
    * can accept 2 arguments each time. It is used for better readability. For example,
@@ -1,10 +1,20 @@
 package fava;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import fava.Currying.F1;
 import fava.Currying.F2;
 import fava.Currying.F3;
+import fava.Functions.DoubleIF2;
+import fava.Functions.IF2;
+import fava.Functions.IntIF2;
+import fava.Functions.LongIF2;
+import fava.data.Monoid;
 
 /**
  * Functions for folding (a.k.a reducing).
@@ -13,6 +23,28 @@ import fava.Currying.F3;
  * @see <a href="https://en.wikipedia.org/wiki/Fold_(higher-order_function)">Fold (higher-order function)</a>
  */
 public class Folding {
+  /**
+   * Default number of elements below which {@code parallelFold} stops splitting the list and
+   * folds sequentially.
+   */
+  public static final int DEFAULT_PARALLEL_THRESHOLD = 4096;
+
+  @SuppressWarnings("rawtypes")
+  private static final F3 FOLDL = new F3<F1<Object, F1<Object, Object>>, Object, List<Object>, Object>() {
+    @Override
+    public Object apply(F1<Object, F1<Object, Object>> f, Object initial, List<Object> list) {
+      return foldlIteratively(uncurried(f), initial, list);
+    }
+  };
+
+  @SuppressWarnings("rawtypes")
+  private static final F3 FOLDR = new F3<F1<Object, F1<Object, Object>>, Object, List<Object>, Object>() {
+    @Override
+    public Object apply(F1<Object, F1<Object, Object>> f, Object r, List<Object> data) {
+      return foldrIteratively(uncurried(f), r, data);
+    }
+  };
+
   /**
    * Left fold.
    * 
@@ -25,7 +57,30 @@ public class Folding {
    * @param list the list to be folded
    */
   public static <T, R> R foldl(F1<T, F1<R, R>> f, R initial, List<T> list) {
-    return Folding.<T, R>foldl().apply(f).apply(initial).apply(list);
+    return foldlIteratively(uncurried(f), initial, list);
+  }
+
+  /**
+   * Left fold with an uncurried folding function, typically a lambda.
+   *
+   * <p> foldl: (T -> R -> R) -> R -> [T] -> R
+   *
+   * @param <T> the type of elements in the list
+   * @param <R> the type of the folding result
+   * @param f the folding function
+   * @param initial the initial value
+   * @param list the list to be folded
+   */
+  public static <T, R> R foldl(IF2<T, R, R> f, R initial, List<T> list) {
+    return foldlIteratively(f, initial, list);
+  }
+
+  /**
+   * Left fold with a {@link F2} folding function. It resolves the ambiguity between the curried
+   * and the uncurried overloads, both of which accept a {@link F2}.
+   */
+  public static <T, R> R foldl(F2<T, R, R> f, R initial, List<T> list) {
+    return foldlIteratively(f, initial, list);
   }
 
   /** 
@@ -39,13 +94,9 @@ public class Folding {
    * @param arg2 the initial value
    * @param arg3 the list to be folded
    */
+  @SuppressWarnings("unchecked")
   public static <T, R> F3<F1<T, F1<R, R>>, R, List<T>, R> foldl() {
-    return new F3<F1<T, F1<R, R>>, R, List<T>, R>() {
-      @Override
-      public R apply(F1<T, F1<R, R>> f, R initial, List<T> list) {
-        return foldl(f, initial, list, 0);
-      }
-    };
+    return FOLDL;
   }
 
   /**
@@ -82,7 +133,30 @@ public class Folding {
    * @param list the list to be folded
    */
   public static <T, R> R foldr(F1<T, F1<R, R>> f, R r, List<T> list) {
-    return foldr(f, r, list, 0);
+    return foldrIteratively(uncurried(f), r, list);
+  }
+
+  /**
+   * Right fold with an uncurried folding function, typically a lambda.
+   *
+   * <p> foldr: (T -> R -> R) -> R -> [T] -> R
+   *
+   * @param <T> the type of elements in the list
+   * @param <R> the type of the folding result
+   * @param f the folding function
+   * @param initial the initial value
+   * @param list the list to be folded
+   */
+  public static <T, R> R foldr(IF2<T, R, R> f, R r, List<T> list) {
+    return foldrIteratively(f, r, list);
+  }
+
+  /**
+   * Right fold with a {@link F2} folding function. It resolves the ambiguity between the curried
+   * and the uncurried overloads, both of which accept a {@link F2}.
+   */
+  public static <T, R> R foldr(F2<T, R, R> f, R r, List<T> list) {
+    return foldrIteratively(f, r, list);
   }
 
   /** 
@@ -96,13 +170,9 @@ public class Folding {
    * @param arg2 the initial value
    * @param arg3 the list to be folded
    */
+  @SuppressWarnings("unchecked")
   public static <T, R> F3<F1<T, F1<R, R>>, R, List<T>, R> foldr() {
-    return new F3<F1<T, F1<R, R>>, R, List<T>, R>() {
-      @Override
-      public R apply(F1<T, F1<R, R>> f, R r, List<T> data) {
-        return foldr(f, r, data, 0);
-      }
-    };
+    return FOLDR;
   }
 
   /**
@@ -129,11 +199,179 @@ public class Folding {
     return Folding.<T, R>foldr().apply(f).apply(r);
   }
 
-  private static <T, R> R foldl(F1<T, F1<R, R>> f, R r, List<T> data, int index) {
-    return index == data.size() ? r : foldl(f, f.apply(data.get(index)).apply(r), data, index + 1);
+  /**
+   * Left fold over an array of {@code int}s. Neither the elements nor the accumulator are
+   * boxed.
+   *
+   * <p> foldlInt: (int -> int -> int) -> int -> [int] -> int
+   *
+   * @param f the folding function, which takes an element and the accumulator
+   * @param initial the initial value
+   * @param array the array to be folded
+   */
+  public static int foldlInt(IntIF2 f, int initial, int[] array) {
+    int result = initial;
+    for (int element : array) {
+      result = f.apply(element, result);
+    }
+    return result;
+  }
+
+  /**
+   * Left fold over an array of {@code long}s. Neither the elements nor the accumulator are
+   * boxed.
+   *
+   * <p> foldlLong: (long -> long -> long) -> long -> [long] -> long
+   *
+   * @param f the folding function, which takes an element and the accumulator
+   * @param initial the initial value
+   * @param array the array to be folded
+   */
+  public static long foldlLong(LongIF2 f, long initial, long[] array) {
+    long result = initial;
+    for (long element : array) {
+      result = f.apply(element, result);
+    }
+    return result;
+  }
+
+  /**
+   * Left fold over an array of {@code double}s. Neither the elements nor the accumulator are
+   * boxed.
+   *
+   * <p> foldlDouble: (double -> double -> double) -> double -> [double] -> double
+   *
+   * @param f the folding function, which takes an element and the accumulator
+   * @param initial the initial value
+   * @param array the array to be folded
+   */
+  public static double foldlDouble(DoubleIF2 f, double initial, double[] array) {
+    double result = initial;
+    for (double element : array) {
+      result = f.apply(element, result);
+    }
+    return result;
+  }
+
+  /**
+   * Folds a list in parallel on the common {@link ForkJoinPool}. The list is split into chunks
+   * which are folded independently and then combined, so {@code combine} must be associative
+   * and {@code identity} must be its identity element. The order of the elements is preserved,
+   * so the result is the same as the one of {@code foldl} even if {@code combine} is not
+   * commutative.
+   *
+   * <p> parallelFold: (T -> T -> T) -> T -> [T] -> T
+   *
+   * @param <T> the type of elements in the list
+   * @param combine the associative combining function
+   * @param identity the identity element of {@code combine}
+   * @param list the list to be folded
+   */
+  public static <T> T parallelFold(IF2<T, T, T> combine, T identity, List<T> list) {
+    return parallelFold(Monoid.of(identity, combine), list);
+  }
+
+  /**
+   * Folds a list in parallel with a monoid.
+   *
+   * @see #parallelFold(IF2, Object, List)
+   */
+  public static <T> T parallelFold(Monoid<T> monoid, List<T> list) {
+    return parallelFold(monoid, list, DEFAULT_PARALLEL_THRESHOLD);
+  }
+
+  /**
+   * Folds a list in parallel with a monoid. Ranges of at most {@code threshold} elements are
+   * folded sequentially.
+   *
+   * @see #parallelFold(IF2, Object, List)
+   */
+  public static <T> T parallelFold(Monoid<T> monoid, List<T> list, int threshold) {
+    assert threshold > 0;
+    List<T> data = list instanceof RandomAccess ? list : new ArrayList<T>(list);
+    return ForkJoinPool.commonPool().invoke(new ParallelFoldTask<T>(monoid, data, 0, data.size(), threshold));
   }
 
-  private static <T, R> R foldr(F1<T, F1<R, R>> f, R r, List<T> data, int index) {
-    return index == data.size() ? r : f.apply(data.get(index)).apply(foldr(f, r, data, index + 1));
+  /**
+   * Fork/join task folding the elements of the range [from, to) of a list.
+   */
+  private static final class ParallelFoldTask<T> extends RecursiveTask<T> {
+    private static final long serialVersionUID = 1L;
+
+    private final Monoid<T> monoid;
+    private final List<T> data;
+    private final int from;
+    private final int to;
+    private final int threshold;
+
+    ParallelFoldTask(Monoid<T> monoid, List<T> data, int from, int to, int threshold) {
+      this.monoid = monoid;
+      this.data = data;
+      this.from = from;
+      this.to = to;
+      this.threshold = threshold;
+    }
+
+    @Override
+    protected T compute() {
+      if (to - from <= threshold) {
+        T result = monoid.identity();
+        for (int i = from; i < to; i++) {
+          result = monoid.combine(result, data.get(i));
+        }
+        return result;
+      }
+      int middle = (from + to) >>> 1;
+      ParallelFoldTask<T> left = new ParallelFoldTask<T>(monoid, data, from, middle, threshold);
+      ParallelFoldTask<T> right = new ParallelFoldTask<T>(monoid, data, middle, to, threshold);
+      left.fork();
+      T rightResult = right.compute();
+      return monoid.combine(left.join(), rightResult);
+    }
+  }
+
+  /**
+   * Left fold in a loop, so the stack depth stays constant regardless of the size of the list.
+   * Elements are visited with the list's iterator, which is O(1) per step for both array based
+   * and linked lists.
+   */
+  private static <T, R> R foldlIteratively(IF2<T, R, R> f, R r, List<T> data) {
+    R result = r;
+    for (T element : data) {
+      result = f.apply(element, result);
+    }
+    return result;
+  }
+
+  /**
+   * Right fold in a loop. Instead of recursing to the end of the list and folding on the way
+   * back, it walks the list backwards from the last element, which gives the same result with
+   * constant stack depth.
+   */
+  private static <T, R> R foldrIteratively(IF2<T, R, R> f, R r, List<T> data) {
+    R result = r;
+    ListIterator<T> iterator = data.listIterator(data.size());
+    while (iterator.hasPrevious()) {
+      result = f.apply(iterator.previous(), result);
+    }
+    return result;
+  }
+
+  /**
+   * Turns a curried folding function into the 2 arguments form once per fold, so that each step
+   * doesn't allocate an intermediate closure. A {@link F2} already implements the 2 arguments
+   * form, so it is used directly.
+   */
+  @SuppressWarnings("unchecked")
+  private static <T, R> IF2<T, R, R> uncurried(final F1<T, F1<R, R>> f) {
+    if (f instanceof F2<?, ?, ?>) {
+      return (F2<T, R, R>)f;
+    }
+    return new IF2<T, R, R>() {
+      @Override
+      public R apply(T element, R acc) {
+        return f.apply(element).apply(acc);
+      }
+    };
   }
 }
@@ -43,4 +43,100 @@ public final class Functions {
   public interface IF5<T1, T2, T3, T4, T5, R> {
     R apply(T1 arg1, T2 arg2, T3 arg3, T4 arg4, T5 arg5);
   }
+
+  /**
+   * Functional interface for function of type {@code int -> int}, without boxing.
+   */
+  @FunctionalInterface
+  public interface IntIF1 {
+    int apply(int arg);
+  }
+
+  /**
+   * Functional interface for function of type {@code int -> int -> int}, without boxing.
+   */
+  @FunctionalInterface
+  public interface IntIF2 {
+    int apply(int arg1, int arg2);
+  }
+
+  /**
+   * Functional interface for function of type {@code long -> long}, without boxing.
+   */
+  @FunctionalInterface
+  public interface LongIF1 {
+    long apply(long arg);
+  }
+
+  /**
+   * Functional interface for function of type {@code long -> long -> long}, without boxing.
+   */
+  @FunctionalInterface
+  public interface LongIF2 {
+    long apply(long arg1, long arg2);
+  }
+
+  /**
+   * Functional interface for function of type {@code double -> double}, without boxing.
+   */
+  @FunctionalInterface
+  public interface DoubleIF1 {
+    double apply(double arg);
+  }
+
+  /**
+   * Functional interface for function of type {@code double -> double -> double}, without boxing.
+   */
+  @FunctionalInterface
+  public interface DoubleIF2 {
+    double apply(double arg1, double arg2);
+  }
+
+  /**
+   * Functional interface for predicate of type {@code int -> Boolean}, without boxing.
+   */
+  @FunctionalInterface
+  public interface IntPredIF1 {
+    boolean apply(int arg);
+  }
+
+  /**
+   * Functional interface for function of type {@code int -> R}, without boxing the argument.
+   */
+  @FunctionalInterface
+  public interface IntToObjIF1<R> {
+    R apply(int arg);
+  }
+
+  /**
+   * Functional interface for predicate of type {@code long -> Boolean}, without boxing.
+   */
+  @FunctionalInterface
+  public interface LongPredIF1 {
+    boolean apply(long arg);
+  }
+
+  /**
+   * Functional interface for function of type {@code long -> R}, without boxing the argument.
+   */
+  @FunctionalInterface
+  public interface LongToObjIF1<R> {
+    R apply(long arg);
+  }
+
+  /**
+   * Functional interface for predicate of type {@code double -> Boolean}, without boxing.
+   */
+  @FunctionalInterface
+  public interface DoublePredIF1 {
+    boolean apply(double arg);
+  }
+
+  /**
+   * Functional interface for function of type {@code double -> R}, without boxing the argument.
+   */
+  @FunctionalInterface
+  public interface DoubleToObjIF1<R> {
+    R apply(double arg);
+  }
 }
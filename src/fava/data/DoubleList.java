@@ -0,0 +1,216 @@
+package fava.data;
+
+import java.util.Arrays;
+
+import fava.Functions.DoubleIF1;
+import fava.Functions.DoubleIF2;
+import fava.Functions.DoublePredIF1;
+import fava.Functions.DoubleToObjIF1;
+
+/**
+ * Growable list of {@code double}s backed by a primitive array, so the elements are not boxed.
+ * It has the functional operations of {@link Lists}, which don't change the list but return a
+ * new one.
+ */
+public final class DoubleList {
+  private static final double[] EMPTY = new double[0];
+
+  private double[] elements;
+  private int size;
+
+  public DoubleList() {
+    this.elements = EMPTY;
+  }
+
+  public DoubleList(int capacity) {
+    assert capacity >= 0;
+    this.elements = capacity == 0 ? EMPTY : new double[capacity];
+  }
+
+  private DoubleList(double[] elements, int size) {
+    this.elements = elements;
+    this.size = size;
+  }
+
+  /**
+   * Creates a list with a copy of the given elements.
+   */
+  public static DoubleList of(double... elements) {
+    return new DoubleList(elements.clone(), elements.length);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public double get(int index) {
+    checkIndex(index);
+    return elements[index];
+  }
+
+  public void set(int index, double element) {
+    checkIndex(index);
+    elements[index] = element;
+  }
+
+  /**
+   * Adds an element to the end of the list, growing the backing array when it is full.
+   */
+  public void add(double element) {
+    if (size == elements.length) {
+      elements = Arrays.copyOf(elements, Math.max(8, elements.length + (elements.length >> 1)));
+    }
+    elements[size++] = element;
+  }
+
+  /**
+   * Adds all the elements of another list to the end of this list.
+   */
+  public void addAll(DoubleList list) {
+    if (size + list.size > elements.length) {
+      elements = Arrays.copyOf(elements, Math.max(size + list.size, elements.length + (elements.length >> 1)));
+    }
+    System.arraycopy(list.elements, 0, elements, size, list.size);
+    size += list.size;
+  }
+
+  /**
+   * Returns a copy of the elements as an array.
+   */
+  public double[] toArray() {
+    return Arrays.copyOf(elements, size);
+  }
+
+  /**
+   * Maps a function over the elements.
+   *
+   * <p>map :: (double -> double) -> [double] -> [double]
+   */
+  public DoubleList map(DoubleIF1 f) {
+    double[] result = new double[size];
+    for (int i = 0; i < size; i++) {
+      result[i] = f.apply(elements[i]);
+    }
+    return new DoubleList(result, size);
+  }
+
+  /**
+   * Maps a function of type {@code double -> [double]} over the elements, then flattens the results
+   * into a single list.
+   *
+   * <p>flatMap :: (double -> [double]) -> [double] -> [double]
+   */
+  public DoubleList flatMap(DoubleToObjIF1<DoubleList> f) {
+    DoubleList result = new DoubleList(size);
+    for (int i = 0; i < size; i++) {
+      result.addAll(f.apply(elements[i]));
+    }
+    return result;
+  }
+
+  /**
+   * Returns the unique elements, in the order of their first occurrences.
+   *
+   * <p>Time complexity: O(n)
+   */
+  public DoubleList unique() {
+    // Same as Double.equals, e.g. NaN is equal to itself and 0.0 is not equal to -0.0.
+    long[] bits = new long[size];
+    for (int i = 0; i < size; i++) {
+      bits[i] = Double.doubleToLongBits(elements[i]);
+    }
+    long[] uniqueBits = Lists.unique(bits);
+    double[] result = new double[uniqueBits.length];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = Double.longBitsToDouble(uniqueBits[i]);
+    }
+    return new DoubleList(result, result.length);
+  }
+
+  /**
+   * Returns the elements sorted in ascending order.
+   */
+  public DoubleList sort() {
+    double[] result = toArray();
+    Arrays.sort(result);
+    return new DoubleList(result, size);
+  }
+
+  /**
+   * Left fold.
+   *
+   * <p>foldl :: (double -> double -> double) -> double -> [double] -> double
+   *
+   * @param f the folding function, which takes an element and the accumulator
+   * @param initial the initial value
+   */
+  public double foldl(DoubleIF2 f, double initial) {
+    double result = initial;
+    for (int i = 0; i < size; i++) {
+      result = f.apply(elements[i], result);
+    }
+    return result;
+  }
+
+  /**
+   * Checks if any of the elements matches the condition.
+   *
+   * <p>exists :: (double -> Boolean) -> [double] -> Boolean
+   */
+  public boolean exists(DoublePredIF1 predicate) {
+    for (int i = 0; i < size; i++) {
+      if (predicate.apply(elements[i])) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof DoubleList)) {
+      return false;
+    }
+    DoubleList that = (DoubleList)obj;
+    if (size != that.size) {
+      return false;
+    }
+    for (int i = 0; i < size; i++) {
+      if (Double.doubleToLongBits(elements[i]) != Double.doubleToLongBits(that.elements[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = 1;
+    for (int i = 0; i < size; i++) {
+      hash = 31 * hash + Double.hashCode(elements[i]);
+    }
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder("[");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        builder.append(", ");
+      }
+      builder.append(elements[i]);
+    }
+    return builder.append("]").toString();
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+}
@@ -0,0 +1,207 @@
+package fava.data;
+
+import java.util.Arrays;
+
+import fava.Functions.IntIF1;
+import fava.Functions.IntIF2;
+import fava.Functions.IntPredIF1;
+import fava.Functions.IntToObjIF1;
+
+/**
+ * Growable list of {@code int}s backed by a primitive array, so the elements are not boxed.
+ * It has the functional operations of {@link Lists}, which don't change the list but return a
+ * new one.
+ */
+public final class IntList {
+  private static final int[] EMPTY = new int[0];
+
+  private int[] elements;
+  private int size;
+
+  public IntList() {
+    this.elements = EMPTY;
+  }
+
+  public IntList(int capacity) {
+    assert capacity >= 0;
+    this.elements = capacity == 0 ? EMPTY : new int[capacity];
+  }
+
+  private IntList(int[] elements, int size) {
+    this.elements = elements;
+    this.size = size;
+  }
+
+  /**
+   * Creates a list with a copy of the given elements.
+   */
+  public static IntList of(int... elements) {
+    return new IntList(elements.clone(), elements.length);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public int get(int index) {
+    checkIndex(index);
+    return elements[index];
+  }
+
+  public void set(int index, int element) {
+    checkIndex(index);
+    elements[index] = element;
+  }
+
+  /**
+   * Adds an element to the end of the list, growing the backing array when it is full.
+   */
+  public void add(int element) {
+    if (size == elements.length) {
+      elements = Arrays.copyOf(elements, Math.max(8, elements.length + (elements.length >> 1)));
+    }
+    elements[size++] = element;
+  }
+
+  /**
+   * Adds all the elements of another list to the end of this list.
+   */
+  public void addAll(IntList list) {
+    if (size + list.size > elements.length) {
+      elements = Arrays.copyOf(elements, Math.max(size + list.size, elements.length + (elements.length >> 1)));
+    }
+    System.arraycopy(list.elements, 0, elements, size, list.size);
+    size += list.size;
+  }
+
+  /**
+   * Returns a copy of the elements as an array.
+   */
+  public int[] toArray() {
+    return Arrays.copyOf(elements, size);
+  }
+
+  /**
+   * Maps a function over the elements.
+   *
+   * <p>map :: (int -> int) -> [int] -> [int]
+   */
+  public IntList map(IntIF1 f) {
+    int[] result = new int[size];
+    for (int i = 0; i < size; i++) {
+      result[i] = f.apply(elements[i]);
+    }
+    return new IntList(result, size);
+  }
+
+  /**
+   * Maps a function of type {@code int -> [int]} over the elements, then flattens the results
+   * into a single list.
+   *
+   * <p>flatMap :: (int -> [int]) -> [int] -> [int]
+   */
+  public IntList flatMap(IntToObjIF1<IntList> f) {
+    IntList result = new IntList(size);
+    for (int i = 0; i < size; i++) {
+      result.addAll(f.apply(elements[i]));
+    }
+    return result;
+  }
+
+  /**
+   * Returns the unique elements, in the order of their first occurrences.
+   *
+   * <p>Time complexity: O(n)
+   */
+  public IntList unique() {
+    int[] result = Lists.unique(toArray());
+    return new IntList(result, result.length);
+  }
+
+  /**
+   * Returns the elements sorted in ascending order.
+   */
+  public IntList sort() {
+    int[] result = toArray();
+    Arrays.sort(result);
+    return new IntList(result, size);
+  }
+
+  /**
+   * Left fold.
+   *
+   * <p>foldl :: (int -> int -> int) -> int -> [int] -> int
+   *
+   * @param f the folding function, which takes an element and the accumulator
+   * @param initial the initial value
+   */
+  public int foldl(IntIF2 f, int initial) {
+    int result = initial;
+    for (int i = 0; i < size; i++) {
+      result = f.apply(elements[i], result);
+    }
+    return result;
+  }
+
+  /**
+   * Checks if any of the elements matches the condition.
+   *
+   * <p>exists :: (int -> Boolean) -> [int] -> Boolean
+   */
+  public boolean exists(IntPredIF1 predicate) {
+    for (int i = 0; i < size; i++) {
+      if (predicate.apply(elements[i])) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof IntList)) {
+      return false;
+    }
+    IntList that = (IntList)obj;
+    if (size != that.size) {
+      return false;
+    }
+    for (int i = 0; i < size; i++) {
+      if (elements[i] != that.elements[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = 1;
+    for (int i = 0; i < size; i++) {
+      hash = 31 * hash + elements[i];
+    }
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder("[");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        builder.append(", ");
+      }
+      builder.append(elements[i]);
+    }
+    return builder.append("]").toString();
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+}
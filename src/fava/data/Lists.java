@@ -1,17 +1,23 @@
 package fava.data;
 
-import static fava.Composing._;
 import static fava.Folding.foldl;
 import static fava.Folding.foldr;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import fava.Currying.F1;
 import fava.Currying.F2;
+import fava.Folding;
 import fava.Functions.IF1;
+import fava.Functions.IF2;
 
 /**
  * Functions for lists.
@@ -19,6 +25,97 @@ import fava.Functions.IF1;
  * @author dagang.wei (weidagang@gmail.com)
  */
 public class Lists {
+  // The curried forms of the functions are stateless, so a single instance of each is shared
+  // by all the type arguments instead of allocating one per call.
+  @SuppressWarnings("rawtypes")
+  private static final F2 APPEND = new F2<Object, List<Object>, List<Object>>() {
+    @Override
+    public List<Object> apply(Object element, List<Object> list) {
+      return append(element, list);
+    }
+  };
+
+  @SuppressWarnings("rawtypes")
+  private static final F1 FLATTEN = new F1<List<List<Object>>, List<Object>>() {
+    @Override
+    public List<Object> apply(List<List<Object>> listOfLists) {
+      return flatten(listOfLists);
+    }
+  };
+
+  @SuppressWarnings("rawtypes")
+  private static final F1 REVERSE = new F1<List<Object>, List<Object>>() {
+    @Override
+    public List<Object> apply(List<Object> list) {
+      return reverse(list);
+    }
+  };
+
+  @SuppressWarnings("rawtypes")
+  private static final F2 SORT = new F2<F2<Object, Object, Integer>, List<Object>, List<Object>>() {
+    @Override
+    public List<Object> apply(F2<Object, Object, Integer> comparator, List<Object> list) {
+      return sort(comparator, list);
+    }
+  };
+
+  @SuppressWarnings("rawtypes")
+  private static final F2 EXISTS = new F2<F1<Object, Boolean>, List<Object>, Boolean>() {
+    @Override
+    public Boolean apply(F1<Object, Boolean> predicate, List<Object> list) {
+      return exists(predicate, list);
+    }
+  };
+
+  @SuppressWarnings("rawtypes")
+  private static final F2 MAP = new F2<IF1<Object, Object>, List<Object>, List<Object>>() {
+    @Override
+    public List<Object> apply(IF1<Object, Object> f, List<Object> list) {
+      return map(f, list);
+    }
+  };
+
+  @SuppressWarnings("rawtypes")
+  private static final F2 FLAT_MAP = new F2<IF1<Object, List<Object>>, List<Object>, List<Object>>() {
+    @Override
+    public List<Object> apply(IF1<Object, List<Object>> f, List<Object> list) {
+      return flatMap(f, list);
+    }
+  };
+
+  @SuppressWarnings("rawtypes")
+  private static final F1 UNIQUE = new F1<List<Object>, List<Object>>() {
+    @Override
+    public List<Object> apply(List<Object> list) {
+      return unique(list);
+    }
+  };
+
+  @SuppressWarnings("rawtypes")
+  private static final F2 UNIQUE_BY = new F2<IF1<Object, Object>, List<Object>, List<Object>>() {
+    @Override
+    public List<Object> apply(IF1<Object, Object> keyFn, List<Object> list) {
+      return uniqueBy(keyFn, list);
+    }
+  };
+
+  @SuppressWarnings("rawtypes")
+  private static final IF2 APPEND_IN_PLACE = new IF2<Object, List<Object>, List<Object>>() {
+    @Override
+    public List<Object> apply(Object element, List<Object> acc) {
+      acc.add(element);
+      return acc;
+    }
+  };
+
+  @SuppressWarnings("rawtypes")
+  private static final IF2 APPEND_TO_VECTOR = new IF2<Object, PVector<Object>, PVector<Object>>() {
+    @Override
+    public PVector<Object> apply(Object element, PVector<Object> acc) {
+      return acc.append(element);
+    }
+  };
+
   /**
    * Appends an element to a list. This function will not change the
    * original list, it will create a new list instead.
@@ -40,13 +137,19 @@ public class Lists {
    *
    * <p>append :: T -> [T] -> [T] 
    */
+  @SuppressWarnings("unchecked")
   public static <T> F2<T, List<T>, List<T>> append() {
-    return new F2<T, List<T>, List<T>>() {
-      @Override
-      public List<T> apply(T element, List<T> list) {
-        return append(element, list);
-      }
-    };
+    return APPEND;
+  }
+
+  /**
+   * Appends an element to a persistent vector. The new vector shares its
+   * structure with the original one, so it takes effectively O(1) time.
+   *
+   * <p>append :: T -> [T] -> [T]
+   */
+  public static <T> PVector<T> append(T element, PVector<T> vector) {
+    return vector.append(element);
   }
 
   /**
@@ -55,7 +158,11 @@ public class Lists {
    * <p>flatten: [[T]] -> [T]
    */
   public static <T> List<T> flatten(final List<List<T>> listOfLists) {
-    List<T> result = new ArrayList<T>();
+    int size = 0;
+    for (List<T> list : listOfLists) {
+      size += list.size();
+    }
+    List<T> result = new ArrayList<T>(size);
     for (List<T> list : listOfLists) {
       result.addAll(list);
     }
@@ -67,13 +174,44 @@ public class Lists {
    *
    * <p>flatten: [[T]] -> [T]
    */
+  @SuppressWarnings("unchecked")
   public static <T> F1<List<List<T>>, List<T>> flatten() {
-    return new F1<List<List<T>>, List<T>>() {
-      @Override
-      public List<T> apply(List<List<T>> listOfLists) {
-        return flatten(listOfLists);
+    return FLATTEN;
+  }
+
+  /**
+   * Flattens a vector of vectors into a single vector.
+   *
+   * <p>flatten: [[T]] -> [T]
+   */
+  public static <T> PVector<T> flatten(final PVector<PVector<T>> vectorOfVectors) {
+    PVector<T> result = PVector.empty();
+    for (PVector<T> vector : vectorOfVectors) {
+      for (T element : vector) {
+        result = result.append(element);
       }
-    };
+    }
+    return result;
+  }
+
+  /**
+   * Reverses the elements in a list. This function will not change the
+   * original list, it will create a new list instead.
+   *
+   * <p>reverse :: [T] -> [T]
+   */
+  public static <T> List<T> reverse(List<T> list) {
+    final ArrayList<T> result = new ArrayList<T>(list.size());
+    return foldr(Lists.<T>appendInPlace(), result, list);
+  }
+
+  /**
+   * Reverses the elements in a persistent vector.
+   *
+   * <p>reverse :: [T] -> [T]
+   */
+  public static <T> PVector<T> reverse(PVector<T> vector) {
+    return foldr(Lists.<T>appendToVector(), PVector.<T>empty(), vector);
   }
 
   /**
@@ -81,8 +219,9 @@ public class Lists {
    *
    * <p>reverse :: [T] -> [T]
    */
+  @SuppressWarnings("unchecked")
   public static <T> F1<List<T>, List<T>> reverse() {
-    return foldr(Lists.<T>append(), new ArrayList<T>());
+    return REVERSE;
   }
 
   /**
@@ -106,13 +245,9 @@ public class Lists {
    *
    * <p>sort :: (T -> T -> Int) -> [T] -> [T]
    */
+  @SuppressWarnings("unchecked")
   public static <T> F2<F2<T, T, Integer>, List<T>, List<T>> sort() {
-    return new F2<F2<T, T, Integer>, List<T>, List<T>>() {
-      @Override
-      public List<T> apply(final F2<T, T, Integer> comparator, final List<T> list) {
-        return sort(comparator, list);
-      }
-    };
+    return SORT;
   }
 
   /**
@@ -141,13 +276,9 @@ public class Lists {
   /**
    * Curried version of {@link exists}.
    */
+  @SuppressWarnings("unchecked")
   public static <T> F2<F1<T, Boolean>, List<T>, Boolean> exists() {
-    return new F2<F1<T, Boolean>, List<T>, Boolean>() {
-      @Override
-      public Boolean apply(F1<T, Boolean> predicate, List<T> list) {
-        return exists(predicate, list);
-      }
-    };
+    return EXISTS;
   }
 
   /**
@@ -163,20 +294,38 @@ public class Lists {
   public static <T, R> List<R> map(final IF1<T, R> f, List<T> list) {
     final ArrayList<R> result = new ArrayList<R>(list.size());
     // Here we define {@code map} with {@code foldl}, that means {@code fold}
-    // is more fundamental than {@code map} in the level of abstraction. 
-    return foldl(_(f, Lists.<R>append()), result, list);
+    // is more fundamental than {@code map} in the level of abstraction. The
+    // result list is private to this call, so the folding function appends
+    // to it in place instead of copying it for every element.
+    return foldl(new IF2<T, List<R>, List<R>>() {
+      @Override
+      public List<R> apply(T element, List<R> acc) {
+        acc.add(f.apply(element));
+        return acc;
+      }
+    }, result, list);
   }
 
   /**
-   * Curried version of mapn.
+   * Maps a function over the elements of a persistent vector.
+   *
+   * <p> map: (T -> R) -> [T] -> [R]
    */
-  public static <T, R> F2<IF1<T, R>, List<T>, List<R>> map() {
-    return new F2<IF1<T, R>, List<T>, List<R>>() {
+  public static <T, R> PVector<R> map(final IF1<T, R> f, PVector<T> vector) {
+    return foldl(new IF2<T, PVector<R>, PVector<R>>() {
       @Override
-      public List<R> apply(IF1<T, R> f, List<T> list) {
-        return map(f, list);
+      public PVector<R> apply(T element, PVector<R> acc) {
+        return acc.append(f.apply(element));
       }
-    };
+    }, PVector.<R>empty(), vector);
+  }
+
+  /**
+   * Curried version of mapn.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T, R> F2<IF1<T, R>, List<T>, List<R>> map() {
+    return MAP;
   }
 
   /**
@@ -186,6 +335,42 @@ public class Lists {
     return Lists.<T, R>map().apply(f);
   }
 
+  /**
+   * Maps a function over the elements of a list in parallel on the common
+   * {@link ForkJoinPool}. The function should be pure, since it is applied
+   * to the elements in no particular order and on multiple threads. The
+   * order of the results matches the order of the elements.
+   *
+   * <p> parallelMap: (T -> R) -> [T] -> [R]
+   */
+  public static <T, R> List<R> parallelMap(IF1<T, R> f, List<T> list) {
+    return parallelMap(f, list, Folding.DEFAULT_PARALLEL_THRESHOLD);
+  }
+
+  /**
+   * Maps a function over the elements of a list in parallel. Ranges of at
+   * most {@code threshold} elements are mapped sequentially.
+   */
+  public static <T, R> List<R> parallelMap(IF1<T, R> f, List<T> list, int threshold) {
+    assert threshold > 0;
+    List<T> data = list instanceof RandomAccess ? list : new ArrayList<T>(list);
+    ArrayList<R> result = new ArrayList<R>(Collections.<R>nCopies(data.size(), null));
+    ForkJoinPool.commonPool().invoke(new ParallelMapTask<T, R>(f, data, result, 0, data.size(), threshold));
+    return result;
+  }
+
+  /**
+   * Curried version of parallelMap with partial application serving as syntax sugar.
+   */
+  public static <T, R> F1<List<T>, List<R>> parallelMap(final IF1<T, R> f) {
+    return new F1<List<T>, List<R>>() {
+      @Override
+      public List<R> apply(List<T> list) {
+        return parallelMap(f, list);
+      }
+    };
+  }
+
   /**
    * Maps a function of type "T -> [R]" over the elements of a list, then
    * flatten the results into a single list of type [R].
@@ -204,13 +389,9 @@ public class Lists {
   /**
    * Curried version of flatMap.
    */
+  @SuppressWarnings("unchecked")
   public static <T, R> F2<IF1<T, List<R>>, List<T>, List<R>> flatMap() {
-    return new F2<IF1<T, List<R>>, List<T>, List<R>>() {
-      @Override
-      public List<R> apply(IF1<T, List<R>> arg1, List<T> arg2) {
-        return flatMap(arg1, arg2);
-      }
-    };
+    return FLAT_MAP;
   }
 
   /**
@@ -224,14 +405,15 @@ public class Lists {
    * Returns a list of the unique elements of another list. It will preserve the
    * order between the elements.
    * 
-   * <p>Time complexity: O(n^2)
+   * <p>Time complexity: O(n)
    *
    * <p> unique :: [T] -> [T]
    */
   public static <T> List<T> unique(List<T> list) {
     ArrayList<T> result = new ArrayList<T>();
+    HashSet<T> seen = new HashSet<T>(hashCapacity(list.size()));
     for (T element : list) {
-      if (!result.contains(element)) {
+      if (seen.add(element)) {
         result.add(element);
       }
     }
@@ -241,12 +423,253 @@ public class Lists {
   /**
    * Curried version of {@link unique}.
    */
+  @SuppressWarnings("unchecked")
   public static <T> F1<List<T>, List<T>> unique() {
-    return new F1<List<T>, List<T>>() {
-      @Override
-      public List<T> apply(List<T> list) {
-        return unique(list);
+    return UNIQUE;
+  }
+
+  /**
+   * Returns the unique elements of an int array, in the order of their first
+   * occurrences. The elements are not boxed.
+   *
+   * <p>Time complexity: O(n), or O(n log n) for arrays too large to hash
+   */
+  public static int[] unique(int[] array) {
+    if (array.length > LongHashSet.MAX_SIZE) {
+      return uniqueBySorting(array);
+    }
+    LongHashSet seen = new LongHashSet(array.length);
+    int[] result = new int[array.length];
+    int size = 0;
+    for (int element : array) {
+      if (seen.add(element)) {
+        result[size++] = element;
       }
-    };
+    }
+    return Arrays.copyOf(result, size);
+  }
+
+  /**
+   * Returns the unique elements of a long array, in the order of their first
+   * occurrences. The elements are not boxed.
+   *
+   * <p>Time complexity: O(n), or O(n log n) for arrays too large to hash
+   */
+  public static long[] unique(long[] array) {
+    if (array.length > LongHashSet.MAX_SIZE) {
+      return uniqueBySorting(array);
+    }
+    LongHashSet seen = new LongHashSet(array.length);
+    long[] result = new long[array.length];
+    int size = 0;
+    for (long element : array) {
+      if (seen.add(element)) {
+        result[size++] = element;
+      }
+    }
+    return Arrays.copyOf(result, size);
+  }
+
+  /**
+   * Returns a list of the elements of another list which have unique keys. Of
+   * the elements sharing the same key, only the first one is kept. It will
+   * preserve the order between the elements.
+   *
+   * <p>Time complexity: O(n)
+   *
+   * <p> uniqueBy :: (T -> K) -> [T] -> [T]
+   */
+  public static <T, K> List<T> uniqueBy(IF1<T, K> keyFn, List<T> list) {
+    ArrayList<T> result = new ArrayList<T>();
+    HashSet<K> seen = new HashSet<K>(hashCapacity(list.size()));
+    for (T element : list) {
+      if (seen.add(keyFn.apply(element))) {
+        result.add(element);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Curried version of {@link uniqueBy}.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T, K> F2<IF1<T, K>, List<T>, List<T>> uniqueBy() {
+    return UNIQUE_BY;
+  }
+
+  /**
+   * Curried version of uniqueBy with partial application serving as syntax sugar.
+   */
+  public static <T, K> F1<List<T>, List<T>> uniqueBy(IF1<T, K> keyFn) {
+    return Lists.<T, K>uniqueBy().apply(keyFn);
+  }
+
+  /**
+   * Folding function which adds an element to the end of the accumulator list
+   * and returns the same list. It must only be used on lists private to the
+   * caller, since the list is mutated.
+   */
+  @SuppressWarnings("unchecked")
+  private static <T> IF2<T, List<T>, List<T>> appendInPlace() {
+    return APPEND_IN_PLACE;
+  }
+
+  /**
+   * Folding function which appends an element to a persistent vector.
+   */
+  @SuppressWarnings("unchecked")
+  private static <T> IF2<T, PVector<T>, PVector<T>> appendToVector() {
+    return APPEND_TO_VECTOR;
+  }
+
+  /**
+   * Fork/join task mapping the elements of the range [from, to) of a list
+   * into the same range of the result list. Each task writes to its own
+   * range, and joining the tasks publishes the writes to the caller.
+   */
+  private static final class ParallelMapTask<T, R> extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final IF1<T, R> f;
+    private final List<T> data;
+    private final List<R> result;
+    private final int from;
+    private final int to;
+    private final int threshold;
+
+    ParallelMapTask(IF1<T, R> f, List<T> data, List<R> result, int from, int to, int threshold) {
+      this.f = f;
+      this.data = data;
+      this.result = result;
+      this.from = from;
+      this.to = to;
+      this.threshold = threshold;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= threshold) {
+        for (int i = from; i < to; i++) {
+          result.set(i, f.apply(data.get(i)));
+        }
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      invokeAll(
+          new ParallelMapTask<T, R>(f, data, result, from, middle, threshold),
+          new ParallelMapTask<T, R>(f, data, result, middle, to, threshold));
+    }
+  }
+
+  /**
+   * Returns the initial capacity of a hash set which can hold {@code size}
+   * elements without rehashing.
+   */
+  private static int hashCapacity(int size) {
+    return Math.max((int)(size / 0.75f) + 1, 16);
+  }
+
+  /**
+   * Same as {@link #unique(int[])}, for arrays with more elements than a {@link LongHashSet}
+   * can hold. The distinct elements are found in a sorted copy, then the array is scanned once
+   * more to keep their first occurrences in order.
+   */
+  private static int[] uniqueBySorting(int[] array) {
+    int[] sorted = array.clone();
+    Arrays.sort(sorted);
+    int distinct = 0;
+    for (int i = 0; i < sorted.length; i++) {
+      if (i == 0 || sorted[i] != sorted[distinct - 1]) {
+        sorted[distinct++] = sorted[i];
+      }
+    }
+    boolean[] seen = new boolean[distinct];
+    int[] result = new int[distinct];
+    int size = 0;
+    for (int element : array) {
+      int index = Arrays.binarySearch(sorted, 0, distinct, element);
+      if (!seen[index]) {
+        seen[index] = true;
+        result[size++] = element;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Same as {@link #unique(long[])}, for arrays with more elements than a {@link LongHashSet}
+   * can hold, see {@link #uniqueBySorting(int[])}.
+   */
+  private static long[] uniqueBySorting(long[] array) {
+    long[] sorted = array.clone();
+    Arrays.sort(sorted);
+    int distinct = 0;
+    for (int i = 0; i < sorted.length; i++) {
+      if (i == 0 || sorted[i] != sorted[distinct - 1]) {
+        sorted[distinct++] = sorted[i];
+      }
+    }
+    boolean[] seen = new boolean[distinct];
+    long[] result = new long[distinct];
+    int size = 0;
+    for (long element : array) {
+      int index = Arrays.binarySearch(sorted, 0, distinct, element);
+      if (!seen[index]) {
+        seen[index] = true;
+        result[size++] = element;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Open addressing hash set of primitive longs, so that deduplicating
+   * primitive arrays doesn't box the elements. The table is at most half
+   * full, 0 marks an empty slot and the key 0 itself is tracked separately.
+   */
+  private static final class LongHashSet {
+    /**
+     * The largest table is the largest power of two array length.
+     */
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    /**
+     * The most elements the set is sized for, so that the table stays at most half full.
+     */
+    static final int MAX_SIZE = MAX_CAPACITY / 2;
+
+    private final long[] table;
+    private final int mask;
+    private boolean hasZero;
+
+    LongHashSet(int expectedSize) {
+      // In long, 2 * expectedSize overflows an int beyond 2^30 elements.
+      long capacity = Long.highestOneBit(Math.max(2L * expectedSize - 1, 1)) << 1;
+      capacity = Math.min(capacity, MAX_CAPACITY);
+      this.table = new long[(int)capacity];
+      this.mask = (int)capacity - 1;
+    }
+
+    /**
+     * Adds a key to the set, returns true if the key was not in the set.
+     */
+    boolean add(long key) {
+      if (key == 0) {
+        boolean added = !hasZero;
+        hasZero = true;
+        return added;
+      }
+      long hash = key * 0x9E3779B97F4A7C15L;
+      int index = (int)(hash ^ (hash >>> 32)) & mask;
+      while (table[index] != 0) {
+        if (table[index] == key) {
+          return false;
+        }
+        index = (index + 1) & mask;
+      }
+      table[index] = key;
+      return true;
+    }
   }
 }
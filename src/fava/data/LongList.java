@@ -0,0 +1,207 @@
+package fava.data;
+
+import java.util.Arrays;
+
+import fava.Functions.LongIF1;
+import fava.Functions.LongIF2;
+import fava.Functions.LongPredIF1;
+import fava.Functions.LongToObjIF1;
+
+/**
+ * Growable list of {@code long}s backed by a primitive array, so the elements are not boxed.
+ * It has the functional operations of {@link Lists}, which don't change the list but return a
+ * new one.
+ */
+public final class LongList {
+  private static final long[] EMPTY = new long[0];
+
+  private long[] elements;
+  private int size;
+
+  public LongList() {
+    this.elements = EMPTY;
+  }
+
+  public LongList(int capacity) {
+    assert capacity >= 0;
+    this.elements = capacity == 0 ? EMPTY : new long[capacity];
+  }
+
+  private LongList(long[] elements, int size) {
+    this.elements = elements;
+    this.size = size;
+  }
+
+  /**
+   * Creates a list with a copy of the given elements.
+   */
+  public static LongList of(long... elements) {
+    return new LongList(elements.clone(), elements.length);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public long get(int index) {
+    checkIndex(index);
+    return elements[index];
+  }
+
+  public void set(int index, long element) {
+    checkIndex(index);
+    elements[index] = element;
+  }
+
+  /**
+   * Adds an element to the end of the list, growing the backing array when it is full.
+   */
+  public void add(long element) {
+    if (size == elements.length) {
+      elements = Arrays.copyOf(elements, Math.max(8, elements.length + (elements.length >> 1)));
+    }
+    elements[size++] = element;
+  }
+
+  /**
+   * Adds all the elements of another list to the end of this list.
+   */
+  public void addAll(LongList list) {
+    if (size + list.size > elements.length) {
+      elements = Arrays.copyOf(elements, Math.max(size + list.size, elements.length + (elements.length >> 1)));
+    }
+    System.arraycopy(list.elements, 0, elements, size, list.size);
+    size += list.size;
+  }
+
+  /**
+   * Returns a copy of the elements as an array.
+   */
+  public long[] toArray() {
+    return Arrays.copyOf(elements, size);
+  }
+
+  /**
+   * Maps a function over the elements.
+   *
+   * <p>map :: (long -> long) -> [long] -> [long]
+   */
+  public LongList map(LongIF1 f) {
+    long[] result = new long[size];
+    for (int i = 0; i < size; i++) {
+      result[i] = f.apply(elements[i]);
+    }
+    return new LongList(result, size);
+  }
+
+  /**
+   * Maps a function of type {@code long -> [long]} over the elements, then flattens the results
+   * into a single list.
+   *
+   * <p>flatMap :: (long -> [long]) -> [long] -> [long]
+   */
+  public LongList flatMap(LongToObjIF1<LongList> f) {
+    LongList result = new LongList(size);
+    for (int i = 0; i < size; i++) {
+      result.addAll(f.apply(elements[i]));
+    }
+    return result;
+  }
+
+  /**
+   * Returns the unique elements, in the order of their first occurrences.
+   *
+   * <p>Time complexity: O(n)
+   */
+  public LongList unique() {
+    long[] result = Lists.unique(toArray());
+    return new LongList(result, result.length);
+  }
+
+  /**
+   * Returns the elements sorted in ascending order.
+   */
+  public LongList sort() {
+    long[] result = toArray();
+    Arrays.sort(result);
+    return new LongList(result, size);
+  }
+
+  /**
+   * Left fold.
+   *
+   * <p>foldl :: (long -> long -> long) -> long -> [long] -> long
+   *
+   * @param f the folding function, which takes an element and the accumulator
+   * @param initial the initial value
+   */
+  public long foldl(LongIF2 f, long initial) {
+    long result = initial;
+    for (int i = 0; i < size; i++) {
+      result = f.apply(elements[i], result);
+    }
+    return result;
+  }
+
+  /**
+   * Checks if any of the elements matches the condition.
+   *
+   * <p>exists :: (long -> Boolean) -> [long] -> Boolean
+   */
+  public boolean exists(LongPredIF1 predicate) {
+    for (int i = 0; i < size; i++) {
+      if (predicate.apply(elements[i])) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof LongList)) {
+      return false;
+    }
+    LongList that = (LongList)obj;
+    if (size != that.size) {
+      return false;
+    }
+    for (int i = 0; i < size; i++) {
+      if (elements[i] != that.elements[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = 1;
+    for (int i = 0; i < size; i++) {
+      hash = 31 * hash + Long.hashCode(elements[i]);
+    }
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder("[");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        builder.append(", ");
+      }
+      builder.append(elements[i]);
+    }
+    return builder.append("]").toString();
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package fava.data;
+
+import fava.Functions.IF2;
+
+/**
+ * A monoid is a type with an associative binary operation and an identity element for it:
+ *
+ * <p>{@code combine(a, combine(b, c)) == combine(combine(a, b), c)}
+ * <br>{@code combine(identity, a) == combine(a, identity) == a}
+ *
+ * <p>The associativity is what allows a fold to be split into chunks which are folded
+ * independently, for example in parallel, and then combined. The operation doesn't need to be
+ * commutative, the order of the elements is always preserved.
+ */
+public final class Monoid<T> {
+  private final T identity;
+  private final IF2<T, T, T> combine;
+
+  private Monoid(T identity, IF2<T, T, T> combine) {
+    this.identity = identity;
+    this.combine = combine;
+  }
+
+  /**
+   * Creates a monoid. The caller is responsible for {@code combine} being associative and
+   * {@code identity} being its identity element.
+   */
+  public static <T> Monoid<T> of(T identity, IF2<T, T, T> combine) {
+    assert combine != null;
+    return new Monoid<T>(identity, combine);
+  }
+
+  public T identity() {
+    return identity;
+  }
+
+  public T combine(T arg1, T arg2) {
+    return combine.apply(arg1, arg2);
+  }
+}
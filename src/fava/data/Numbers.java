@@ -5,8 +5,18 @@ import fava.Currying.F2;
 
 /**
  * Functions for numbers.
+ *
+ * <p>The bulk functions on {@code int[]} are plain counted loops over primitive arrays, with no
+ * boxing and no calls in the loop body, which is the shape the JIT auto-vectorizes into SIMD
+ * instructions. The reductions keep 4 independent accumulators, so consecutive iterations don't
+ * wait on each other even where the JIT doesn't vectorize them.
  */
 public class Numbers {
+  private static final F2<Integer, Integer, Integer> SUBSTRACT = curry(Numbers::_substract);
+  private static final F2<Integer, Integer, Integer> MULTIPLY = curry(Numbers::_multiply);
+  private static final F2<Integer, Integer, Maybe<Integer>> DIVIDE = curry(Numbers::_divide);
+  private static final F2<Integer, Integer, Maybe<Integer>> MODULO = curry(Numbers::_modulo);
+
   public static int add(int arg1, int arg2) {
     return _add(arg1, arg2);
   }
@@ -22,7 +32,7 @@ public class Numbers {
   }
 
   public static F2<Integer, Integer, Integer> substract() {
-    return curry(Numbers::_substract);
+    return SUBSTRACT;
   }
 
   public static int multiply(int arg1, int arg2) {
@@ -30,7 +40,7 @@ public class Numbers {
   }
 
   public static F2<Integer, Integer, Integer> multiply() {
-    return curry(Numbers::_multiply);
+    return MULTIPLY;
   }
 
   public static Maybe<Integer> divide(int arg1, int arg2) {
@@ -38,7 +48,7 @@ public class Numbers {
   }
 
   public static F2<Integer, Integer, Maybe<Integer>> divide() {
-    return curry(Numbers::_divide);
+    return DIVIDE;
   }
 
   public static Maybe<Integer> modulo(int arg1, int arg2) {
@@ -46,7 +56,89 @@ public class Numbers {
   }
 
   public static F2<Integer, Integer, Maybe<Integer>> modulo() {
-    return curry(Numbers::_modulo);
+    return MODULO;
+  }
+
+  /**
+   * Adds two arrays element by element.
+   */
+  public static int[] add(int[] arg1, int[] arg2) {
+    assert arg1.length == arg2.length;
+    int[] result = new int[arg1.length];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = arg1[i] + arg2[i];
+    }
+    return result;
+  }
+
+  /**
+   * Multiplies each element of an array by a factor.
+   */
+  public static int[] scale(int[] array, int factor) {
+    int[] result = new int[array.length];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = array[i] * factor;
+    }
+    return result;
+  }
+
+  /**
+   * Sums the elements of an array. The sum is a {@code long}, so it doesn't overflow.
+   */
+  public static long sum(int[] array) {
+    long sum0 = 0;
+    long sum1 = 0;
+    long sum2 = 0;
+    long sum3 = 0;
+    int i = 0;
+    for (; i + 3 < array.length; i += 4) {
+      sum0 += array[i];
+      sum1 += array[i + 1];
+      sum2 += array[i + 2];
+      sum3 += array[i + 3];
+    }
+    for (; i < array.length; i++) {
+      sum0 += array[i];
+    }
+    return sum0 + sum1 + sum2 + sum3;
+  }
+
+  /**
+   * Returns the dot product of two arrays.
+   */
+  public static long dot(int[] arg1, int[] arg2) {
+    assert arg1.length == arg2.length;
+    long sum0 = 0;
+    long sum1 = 0;
+    long sum2 = 0;
+    long sum3 = 0;
+    int i = 0;
+    for (; i + 3 < arg1.length; i += 4) {
+      sum0 += (long)arg1[i] * arg2[i];
+      sum1 += (long)arg1[i + 1] * arg2[i + 1];
+      sum2 += (long)arg1[i + 2] * arg2[i + 2];
+      sum3 += (long)arg1[i + 3] * arg2[i + 3];
+    }
+    for (; i < arg1.length; i++) {
+      sum0 += (long)arg1[i] * arg2[i];
+    }
+    return sum0 + sum1 + sum2 + sum3;
+  }
+
+  /**
+   * Divides two arrays element by element into {@code quotients}. Rather than a {@code Maybe}
+   * per element, it returns a mask which is false where the divisor is 0, and the quotient there
+   * is 0.
+   */
+  public static boolean[] divide(int[] dividends, int[] divisors, int[] quotients) {
+    assert dividends.length == divisors.length && dividends.length == quotients.length;
+    boolean[] valid = new boolean[dividends.length];
+    for (int i = 0; i < dividends.length; i++) {
+      int divisor = divisors[i];
+      valid[i] = divisor != 0;
+      quotients[i] = divisor != 0 ? dividends[i] / divisor : 0;
+    }
+    return valid;
   }
 
   private static int _add(int arg1, int arg2) {
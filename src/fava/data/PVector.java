@@ -0,0 +1,212 @@
+package fava.data;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Persistent immutable vector. {@link #append(Object)} and {@link #update(int, Object)} never
+ * change the vector, they return a new vector which shares most of its structure with the
+ * original one instead of copying it.
+ *
+ * <p>The elements are stored in a 32-way trie, with the last (up to) 32 elements kept in a
+ * separate tail array. Lookup and update copy at most one path of the trie, which is
+ * O(log32 n), and append only copies the tail most of the time, so all of them are effectively
+ * O(1).
+ *
+ * <p>It is a read-only {@link java.util.List}, so it can be passed to any function which takes a
+ * list. The mutators of {@code List} throw {@link UnsupportedOperationException}.
+ *
+ * @see <a href="https://hypirion.com/musings/understanding-persistent-vector-pt-1">Understanding Persistent Vector</a>
+ */
+public final class PVector<T> extends AbstractList<T> {
+  private static final int BITS = 5;
+  private static final int WIDTH = 1 << BITS;
+  private static final int MASK = WIDTH - 1;
+
+  private static final PVector<Object> EMPTY = new PVector<Object>(0, BITS, new Object[WIDTH], new Object[0]);
+
+  private final int count;
+  private final int shift;
+  private final Object[] root;
+  private final Object[] tail;
+
+  private PVector(int count, int shift, Object[] root, Object[] tail) {
+    this.count = count;
+    this.shift = shift;
+    this.root = root;
+    this.tail = tail;
+  }
+
+  /**
+   * Returns the empty vector.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> PVector<T> empty() {
+    return (PVector<T>)EMPTY;
+  }
+
+  /**
+   * Creates a vector with the elements of an iterable, in the same order.
+   */
+  public static <T> PVector<T> from(Iterable<? extends T> elements) {
+    PVector<T> result = empty();
+    for (T element : elements) {
+      result = result.append(element);
+    }
+    return result;
+  }
+
+  /**
+   * Creates a vector with the given elements.
+   */
+  @SafeVarargs
+  @SuppressWarnings("varargs")
+  public static <T> PVector<T> of(T... elements) {
+    return from(Arrays.asList(elements));
+  }
+
+  @Override
+  public int size() {
+    return count;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public T get(int index) {
+    checkIndex(index, count);
+    return (T)arrayFor(index)[index & MASK];
+  }
+
+  /**
+   * Returns a new vector with the element added to the end.
+   */
+  public PVector<T> append(T element) {
+    int tailSize = count - tailOffset();
+    if (tailSize < WIDTH) {
+      Object[] newTail = Arrays.copyOf(tail, tailSize + 1);
+      newTail[tailSize] = element;
+      return new PVector<T>(count + 1, shift, root, newTail);
+    }
+
+    // The tail is full, push it into the trie and start a new tail.
+    Object[] newRoot;
+    int newShift = shift;
+    if ((count >>> BITS) > (1 << shift)) {
+      // The trie is full, add a level on top of the root.
+      newRoot = new Object[WIDTH];
+      newRoot[0] = root;
+      newRoot[1] = newPath(shift, tail);
+      newShift += BITS;
+    } else {
+      newRoot = pushTail(shift, root, tail);
+    }
+    return new PVector<T>(count + 1, newShift, newRoot, new Object[] {element});
+  }
+
+  /**
+   * Returns a new vector with the element at {@code index} replaced. Updating at
+   * {@code index == size()} is the same as {@link #append(Object)}.
+   */
+  public PVector<T> update(int index, T element) {
+    if (index == count) {
+      return append(element);
+    }
+    checkIndex(index, count);
+    if (index >= tailOffset()) {
+      Object[] newTail = tail.clone();
+      newTail[index & MASK] = element;
+      return new PVector<T>(count, shift, root, newTail);
+    }
+    return new PVector<T>(count, shift, update(shift, root, index, element), tail);
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    return new Iterator<T>() {
+      private int index = 0;
+      private Object[] array = count > 0 ? arrayFor(0) : null;
+
+      @Override
+      public boolean hasNext() {
+        return index < count;
+      }
+
+      @SuppressWarnings("unchecked")
+      @Override
+      public T next() {
+        if (index >= count) {
+          throw new NoSuchElementException();
+        }
+        if (index > 0 && (index & MASK) == 0) {
+          array = arrayFor(index);
+        }
+        return (T)array[index++ & MASK];
+      }
+    };
+  }
+
+  /**
+   * Returns the index of the first element in the tail.
+   */
+  private int tailOffset() {
+    return count < WIDTH ? 0 : ((count - 1) >>> BITS) << BITS;
+  }
+
+  /**
+   * Returns the leaf array which holds the element at {@code index}.
+   */
+  private Object[] arrayFor(int index) {
+    if (index >= tailOffset()) {
+      return tail;
+    }
+    Object[] node = root;
+    for (int level = shift; level > 0; level -= BITS) {
+      node = (Object[])node[(index >>> level) & MASK];
+    }
+    return node;
+  }
+
+  private Object[] pushTail(int level, Object[] parent, Object[] tailNode) {
+    int subIndex = ((count - 1) >>> level) & MASK;
+    Object[] result = parent.clone();
+    Object[] nodeToInsert;
+    if (level == BITS) {
+      nodeToInsert = tailNode;
+    } else {
+      Object[] child = (Object[])parent[subIndex];
+      nodeToInsert = child != null
+          ? pushTail(level - BITS, child, tailNode)
+          : newPath(level - BITS, tailNode);
+    }
+    result[subIndex] = nodeToInsert;
+    return result;
+  }
+
+  private static Object[] newPath(int level, Object[] node) {
+    if (level == 0) {
+      return node;
+    }
+    Object[] result = new Object[WIDTH];
+    result[0] = newPath(level - BITS, node);
+    return result;
+  }
+
+  private static Object[] update(int level, Object[] node, int index, Object element) {
+    Object[] result = node.clone();
+    if (level == 0) {
+      result[index & MASK] = element;
+    } else {
+      int subIndex = (index >>> level) & MASK;
+      result[subIndex] = update(level - BITS, (Object[])node[subIndex], index, element);
+    }
+    return result;
+  }
+
+  private static void checkIndex(int index, int size) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+}
@@ -0,0 +1,292 @@
+package fava.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import fava.Functions.IF1;
+import fava.Functions.IF2;
+import fava.functor.Functor;
+import fava.monad.Monad;
+
+/**
+ * A lazy, pull-based sequence. Operations like {@link #map}, {@link #filter} and
+ * {@link #flatMap} don't compute anything, they only describe a pipeline. The elements are
+ * pulled through the pipeline one at a time when the sequence is iterated, so no intermediate
+ * collection is ever built. Only terminal operations such as {@link #foldl}, {@link #toList}
+ * and {@link #exists} consume the sequence.
+ *
+ * <p>Consecutive {@code map} and {@code filter} stages are fused into a single stage, which
+ * runs all of them in one loop over each element instead of stacking one iterator per stage.
+ *
+ * <p>A sequence can be iterated more than once, each iteration starts over from the source.
+ */
+public final class Seq<T> implements Iterable<T>, Functor<T>, Monad<T> {
+  private static final Stage[] NO_STAGES = new Stage[0];
+
+  /**
+   * A fused map or filter stage.
+   */
+  private static final class Stage {
+    final boolean isFilter;
+    final IF1<Object, ?> f;
+
+    Stage(boolean isFilter, IF1<Object, ?> f) {
+      this.isFilter = isFilter;
+      this.f = f;
+    }
+  }
+
+  private final Iterable<?> source;
+  private final Stage[] stages;
+
+  private Seq(Iterable<?> source, Stage[] stages) {
+    this.source = source;
+    this.stages = stages;
+  }
+
+  /**
+   * Creates a sequence over the elements of an iterable, such as a list.
+   */
+  public static <T> Seq<T> from(Iterable<T> iterable) {
+    return new Seq<T>(iterable, NO_STAGES);
+  }
+
+  /**
+   * Creates a sequence of the given elements.
+   */
+  @SafeVarargs
+  @SuppressWarnings("varargs")
+  public static <T> Seq<T> of(T... elements) {
+    return from(Arrays.asList(elements));
+  }
+
+  /**
+   * Creates an infinite sequence of {@code seed}, {@code f(seed)}, {@code f(f(seed))}, ...
+   */
+  public static <T> Seq<T> iterate(final T seed, final IF1<T, T> f) {
+    return from(new Iterable<T>() {
+      @Override
+      public Iterator<T> iterator() {
+        return new Iterator<T>() {
+          private boolean started = false;
+          private T current = seed;
+
+          @Override
+          public boolean hasNext() {
+            return true;
+          }
+
+          @Override
+          public T next() {
+            current = started ? f.apply(current) : current;
+            started = true;
+            return current;
+          }
+        };
+      }
+    });
+  }
+
+  /**
+   * Lazily maps a function over the elements.
+   *
+   * <p>map :: (T -> R) -> Seq T -> Seq R
+   */
+  @SuppressWarnings("unchecked")
+  public <R> Seq<R> map(IF1<T, R> f) {
+    return new Seq<R>(source, withStage(new Stage(false, (IF1<Object, ?>)f)));
+  }
+
+  /**
+   * Lazily keeps the elements which match the predicate.
+   *
+   * <p>filter :: (T -> Boolean) -> Seq T -> Seq T
+   */
+  @SuppressWarnings("unchecked")
+  public Seq<T> filter(IF1<T, Boolean> predicate) {
+    return new Seq<T>(source, withStage(new Stage(true, (IF1<Object, ?>)predicate)));
+  }
+
+  /**
+   * Lazily maps a function of type {@code T -> [R]} over the elements and flattens the results.
+   *
+   * <p>flatMap :: (T -> [R]) -> Seq T -> Seq R
+   */
+  public <R> Seq<R> flatMap(final IF1<T, ? extends Iterable<R>> f) {
+    return from(new Iterable<R>() {
+      @Override
+      public Iterator<R> iterator() {
+        final Iterator<T> outer = Seq.this.iterator();
+        return new Iterator<R>() {
+          private Iterator<R> inner = Collections.<R>emptyList().iterator();
+
+          @Override
+          public boolean hasNext() {
+            while (!inner.hasNext() && outer.hasNext()) {
+              inner = f.apply(outer.next()).iterator();
+            }
+            return inner.hasNext();
+          }
+
+          @Override
+          public R next() {
+            if (!hasNext()) {
+              throw new NoSuchElementException();
+            }
+            return inner.next();
+          }
+        };
+      }
+    });
+  }
+
+  /**
+   * Lazily takes the first {@code n} elements. The elements after them are never pulled from
+   * the upstream stages.
+   *
+   * <p>take :: Int -> Seq T -> Seq T
+   */
+  public Seq<T> take(final int n) {
+    return from(new Iterable<T>() {
+      @Override
+      public Iterator<T> iterator() {
+        final Iterator<T> iterator = Seq.this.iterator();
+        return new Iterator<T>() {
+          private int count = 0;
+
+          @Override
+          public boolean hasNext() {
+            return count < n && iterator.hasNext();
+          }
+
+          @Override
+          public T next() {
+            if (!hasNext()) {
+              throw new NoSuchElementException();
+            }
+            count++;
+            return iterator.next();
+          }
+        };
+      }
+    });
+  }
+
+  @Override
+  public <R> Seq<R> fmap(IF1<T, R> f) {
+    return map(f);
+  }
+
+  @Override
+  public <R> Seq<R> bind(final IF1<T, ? extends Monad<R>> f) {
+    return flatMap(new IF1<T, Seq<R>>() {
+      @Override
+      public Seq<R> apply(T value) {
+        return (Seq<R>)f.apply(value);
+      }
+    });
+  }
+
+  /**
+   * Checks if any of the elements matches the condition. It stops pulling elements as soon as
+   * one matches.
+   *
+   * <p>exists :: (T -> Boolean) -> Seq T -> Boolean
+   */
+  public boolean exists(IF1<T, Boolean> predicate) {
+    for (T element : this) {
+      if (predicate.apply(element)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Left fold, which runs the whole pipeline in a single pass.
+   *
+   * <p>foldl :: (T -> R -> R) -> R -> Seq T -> R
+   */
+  public <R> R foldl(IF2<T, R, R> f, R initial) {
+    R result = initial;
+    for (T element : this) {
+      result = f.apply(element, result);
+    }
+    return result;
+  }
+
+  /**
+   * Materializes the sequence into a list.
+   */
+  public List<T> toList() {
+    ArrayList<T> result = new ArrayList<T>();
+    for (T element : this) {
+      result.add(element);
+    }
+    return result;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public Iterator<T> iterator() {
+    final Iterator<?> iterator = source.iterator();
+    if (stages.length == 0) {
+      return (Iterator<T>)iterator;
+    }
+    return new Iterator<T>() {
+      private boolean ready = false;
+      private Object next;
+
+      @Override
+      public boolean hasNext() {
+        if (!ready) {
+          ready = advance();
+        }
+        return ready;
+      }
+
+      @Override
+      public T next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        T result = (T)next;
+        ready = false;
+        next = null;
+        return result;
+      }
+
+      /**
+       * Pulls source elements through all the fused stages until one passes every filter.
+       */
+      private boolean advance() {
+        pull:
+        while (iterator.hasNext()) {
+          Object value = iterator.next();
+          for (Stage stage : stages) {
+            if (stage.isFilter) {
+              if (!(Boolean)stage.f.apply(value)) {
+                continue pull;
+              }
+            } else {
+              value = stage.f.apply(value);
+            }
+          }
+          next = value;
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  private Stage[] withStage(Stage stage) {
+    Stage[] result = Arrays.copyOf(stages, stages.length + 1);
+    result[stages.length] = stage;
+    return result;
+  }
+}
@@ -0,0 +1,137 @@
+package fava.data;
+
+import java.util.List;
+
+import fava.Currying.F1;
+import fava.Functions.IF1;
+import fava.Functions.IF2;
+
+/**
+ * A set of curried functions for {@link Seq}, so that lazy pipelines can be built with
+ * {@link fava.Composing#_}. For example,
+ *
+ * <p>{@code _(split(" "), Seqs.<String>seq(), Seqs.map(toUpperCase()), Seqs.<String>toList(), join("_"))}
+ *
+ * <p>runs the {@code map} stage lazily and only materializes a list at the end.
+ */
+public final class Seqs {
+  @SuppressWarnings("rawtypes")
+  private static final F1 SEQ = new F1<List<Object>, Seq<Object>>() {
+    @Override
+    public Seq<Object> apply(List<Object> list) {
+      return Seq.from(list);
+    }
+  };
+
+  @SuppressWarnings("rawtypes")
+  private static final F1 TO_LIST = new F1<Seq<Object>, List<Object>>() {
+    @Override
+    public List<Object> apply(Seq<Object> seq) {
+      return seq.toList();
+    }
+  };
+
+  /**
+   * Turns a list into a lazy sequence.
+   *
+   * <p>seq :: [T] -> Seq T
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> F1<List<T>, Seq<T>> seq() {
+    return SEQ;
+  }
+
+  /**
+   * Curried form of {@link Seq#map}.
+   *
+   * <p>map :: (T -> R) -> Seq T -> Seq R
+   */
+  public static <T, R> F1<Seq<T>, Seq<R>> map(final IF1<T, R> f) {
+    return new F1<Seq<T>, Seq<R>>() {
+      @Override
+      public Seq<R> apply(Seq<T> seq) {
+        return seq.map(f);
+      }
+    };
+  }
+
+  /**
+   * Curried form of {@link Seq#filter}.
+   *
+   * <p>filter :: (T -> Boolean) -> Seq T -> Seq T
+   */
+  public static <T> F1<Seq<T>, Seq<T>> filter(final IF1<T, Boolean> predicate) {
+    return new F1<Seq<T>, Seq<T>>() {
+      @Override
+      public Seq<T> apply(Seq<T> seq) {
+        return seq.filter(predicate);
+      }
+    };
+  }
+
+  /**
+   * Curried form of {@link Seq#flatMap}.
+   *
+   * <p>flatMap :: (T -> [R]) -> Seq T -> Seq R
+   */
+  public static <T, R> F1<Seq<T>, Seq<R>> flatMap(final IF1<T, ? extends Iterable<R>> f) {
+    return new F1<Seq<T>, Seq<R>>() {
+      @Override
+      public Seq<R> apply(Seq<T> seq) {
+        return seq.flatMap(f);
+      }
+    };
+  }
+
+  /**
+   * Curried form of {@link Seq#take}.
+   *
+   * <p>take :: Int -> Seq T -> Seq T
+   */
+  public static <T> F1<Seq<T>, Seq<T>> take(final int n) {
+    return new F1<Seq<T>, Seq<T>>() {
+      @Override
+      public Seq<T> apply(Seq<T> seq) {
+        return seq.take(n);
+      }
+    };
+  }
+
+  /**
+   * Curried form of {@link Seq#exists}.
+   *
+   * <p>exists :: (T -> Boolean) -> Seq T -> Boolean
+   */
+  public static <T> F1<Seq<T>, Boolean> exists(final IF1<T, Boolean> predicate) {
+    return new F1<Seq<T>, Boolean>() {
+      @Override
+      public Boolean apply(Seq<T> seq) {
+        return seq.exists(predicate);
+      }
+    };
+  }
+
+  /**
+   * Curried form of {@link Seq#foldl}.
+   *
+   * <p>foldl :: (T -> R -> R) -> R -> Seq T -> R
+   */
+  public static <T, R> F1<Seq<T>, R> foldl(final IF2<T, R, R> f, final R initial) {
+    return new F1<Seq<T>, R>() {
+      @Override
+      public R apply(Seq<T> seq) {
+        return seq.foldl(f, initial);
+      }
+    };
+  }
+
+  /**
+   * Curried form of {@link Seq#toList}.
+   *
+   * <p>toList :: Seq T -> [T]
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> F1<Seq<T>, List<T>> toList() {
+    return TO_LIST;
+  }
+}
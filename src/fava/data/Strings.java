@@ -14,6 +14,54 @@ import fava.Functions.IF2;
  * @author dagang.wei (weidagang@gmail.com)
  **/
 public class Strings {
+  private static final F2<String, String, List<String>> SPLIT = new F2<String, String, List<String>>() {
+    @Override public List<String> apply(String delimiter, String data) {
+      return Arrays.asList(data.split(delimiter));
+    }
+  };
+
+  private static final F2<String, String, String> CONCAT = new F2<String, String, String>() {
+    @Override
+    public String apply(String arg1, String arg2) {
+      return arg1 + arg2;
+    }
+  };
+
+  private static final F2<String, List<String>, String> JOIN = Currying.curry((IF2<String, List<String>, String>)Strings::join);
+
+  private static final F1<String, String> TO_UPPER_CASE = new F1<String, String>() {
+    @Override public String apply(String str) {
+      return str.toUpperCase();
+    }
+  };
+
+  private static final F1<String, String> TO_LOWER_CASE = new F1<String, String>() {
+    @Override public String apply(String str) {
+      return str.toLowerCase();
+    }
+  };
+
+  private static final F2<String, String, Integer> COMPARE = new F2<String, String, Integer>() {
+    @Override
+    public Integer apply(String str1, String str2) {
+      return str1.compareTo(str2);
+    }
+  };
+
+  private static final F2<String, String, Integer> COMPARE_IGNORE_CASE = new F2<String, String, Integer>() {
+    @Override
+    public Integer apply(String str1, String str2) {
+      return str1.compareToIgnoreCase(str2);
+    }
+  };
+
+  private static final F2<Integer, String, String> TIMES = new F2<Integer, String, String>() {
+    @Override
+    public String apply(Integer n, String str) {
+      return times(n, str);
+    }
+  };
+
   /**
    * Curried function for splitting a string by a delimiter.
    * 
@@ -23,11 +71,7 @@ public class Strings {
    * @param arg2 the string to be splitted
    */
   public static F2<String, String, List<String>> split() {
-    return new F2<String, String, List<String>>() {
-      @Override public List<String> apply(String delimiter, String data) {
-        return Arrays.asList(data.split(delimiter));
-      }
-    };
+    return SPLIT;
   }
 
   /**
@@ -46,12 +90,7 @@ public class Strings {
    * Curried function for concatenating two strings.
    */
   public static F2<String, String, String> concat() {
-    return new F2<String, String, String>() {
-      @Override
-      public String apply(String arg1, String arg2) {
-        return arg1 + arg2;
-      }
-    };
+    return CONCAT;
   }
 
   /**
@@ -77,7 +116,7 @@ public class Strings {
    * @param arg2 the string list
    */
   public static F2<String, List<String>, String> join() {
-    return Currying.curry((IF2<String, List<String>, String>)Strings::join);
+    return JOIN;
   }
 
   /**
@@ -105,11 +144,7 @@ public class Strings {
    * @param str the string to be converted
    */
   public static F1<String, String> toUpperCase() {
-    return new F1<String, String>() {
-      @Override public String apply(String str) {
-        return str.toUpperCase();
-      }
-    };
+    return TO_UPPER_CASE;
   }
 
   /**
@@ -120,11 +155,7 @@ public class Strings {
    * @param str the string to be converted
    */
   public static F1<String, String> toLowerCase() {
-    return new F1<String, String>() {
-      @Override public String apply(String str) {
-        return str.toLowerCase();
-      }
-    };
+    return TO_LOWER_CASE;
   }
 
   /**
@@ -136,12 +167,7 @@ public class Strings {
    * this string is lexicographically greater than the string argument.
    */
   public static F2<String, String, Integer> compare() {
-    return new F2<String, String, Integer>() {
-      @Override
-      public Integer apply(String str1, String str2) {
-        return str1.compareTo(str2);
-      }
-    };
+    return COMPARE;
   }
 
   /**
@@ -154,12 +180,7 @@ public class Strings {
    * this string is lexicographically greater than the string argument.
    */
   public static F2<String, String, Integer> compareIgnoreCase() {
-    return new F2<String, String, Integer>() {
-      @Override
-      public Integer apply(String str1, String str2) {
-        return str1.compareToIgnoreCase(str2);
-      }
-    };
+    return COMPARE_IGNORE_CASE;
   }
 
   /**
@@ -178,11 +199,6 @@ public class Strings {
    * @return
    */
   public static F2<Integer, String, String> times() {
-    return new F2<Integer, String, String>() {
-      @Override
-      public String apply(Integer n, String str) {
-        return times(n, str);
-      }
-    };
+    return TIMES;
   }
 }
@@ -0,0 +1,605 @@
+package fava.promise;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import fava.Functions.IF1;
+import fava.Functions.IF2;
+import fava.data.Maybe;
+import fava.data.Pair;
+import fava.functor.Functor;
+import fava.monad.Monad;
+import fava.promise.Promise.Listener;
+
+/**
+ * An asynchronous sequence, the streaming counterpart of {@link Promise}. Each call of
+ * {@link #next()} returns a promise of the next element, or of nothing at the end of the
+ * sequence.
+ *
+ * <p>It is pull-based: an element is only produced when the consumer asks for it, so a slow
+ * consumer never gets flooded and a pipeline such as {@code filter}, {@code fmap} and
+ * {@code foldl} over an unbounded sequence runs in constant memory.
+ *
+ * <p>{@code next()} must not be called again before the promise returned by the previous call
+ * has completed. After the end of the sequence, {@code next()} keeps returning nothing.
+ *
+ * <p>For push-based sources and sinks it speaks the demand protocol of Reactive Streams through
+ * its own {@link Publisher}, {@link Subscriber} and {@link Subscription}, which mirror the
+ * methods of {@code java.util.concurrent.Flow}. They are not Flow's types, and there is no
+ * bridge to Flow: Flow needs Java 9 and Fava targets Java 8. Bridging takes a small wrapper on
+ * each side which forwards the four {@code Subscriber} methods and the two
+ * {@code Subscription} methods.
+ */
+public abstract class AsyncSeq<T> implements Functor<T>, Monad<T> {
+  /**
+   * Source of elements which pushes at most as many elements as its subscriber requested.
+   */
+  public static interface Publisher<T> {
+    void subscribe(Subscriber<? super T> subscriber);
+  }
+
+  /**
+   * Receiver of the elements of a {@link Publisher}.
+   */
+  public static interface Subscriber<T> {
+    void onSubscribe(Subscription subscription);
+    void onNext(T element);
+    void onError(Exception exception);
+    void onComplete();
+  }
+
+  /**
+   * Link between a publisher and a subscriber, through which the subscriber signals demand.
+   */
+  public static interface Subscription {
+    /**
+     * Allows the publisher to push {@code n} more elements. {@code Long.MAX_VALUE} means
+     * unbounded.
+     */
+    void request(long n);
+    void cancel();
+  }
+
+  /**
+   * Returns the promise of the next element, or of nothing at the end of the sequence.
+   */
+  public abstract Promise<Maybe<T>> next();
+
+  /**
+   * Returns the empty sequence.
+   */
+  public static <T> AsyncSeq<T> empty() {
+    return new AsyncSeq<T>() {
+      @Override
+      public Promise<Maybe<T>> next() {
+        return Promise.unit(Maybe.<T>nothing());
+      }
+    };
+  }
+
+  /**
+   * Creates a sequence over the elements of an iterable.
+   */
+  public static <T> AsyncSeq<T> from(final Iterable<T> iterable) {
+    return new AsyncSeq<T>() {
+      private Iterator<T> iterator;
+
+      @Override
+      public Promise<Maybe<T>> next() {
+        if (iterator == null) {
+          iterator = iterable.iterator();
+        }
+        return Promise.unit(iterator.hasNext() ? Maybe.just(iterator.next()) : Maybe.<T>nothing());
+      }
+    };
+  }
+
+  /**
+   * Creates a sequence of the given elements.
+   */
+  @SafeVarargs
+  @SuppressWarnings("varargs")
+  public static <T> AsyncSeq<T> of(T... elements) {
+    return from(Arrays.asList(elements));
+  }
+
+  /**
+   * Creates a sequence from an asynchronous step function, e.g. one which fetches a page of
+   * records by its page token. Each step returns an element and the state for the next step, or
+   * nothing to end the sequence.
+   *
+   * <p>unfold :: S -> (S -> Promise (Maybe (T, S))) -> AsyncSeq T
+   */
+  public static <S, T> AsyncSeq<T> unfold(final S seed, final IF1<S, Promise<Maybe<Pair<T, S>>>> f) {
+    return new AsyncSeq<T>() {
+      private S state = seed;
+      private boolean done = false;
+
+      @Override
+      public Promise<Maybe<T>> next() {
+        if (done) {
+          return Promise.unit(Maybe.<T>nothing());
+        }
+        return f.apply(state).fmap(new IF1<Maybe<Pair<T, S>>, Maybe<T>>() {
+          @Override
+          public Maybe<T> apply(Maybe<Pair<T, S>> step) {
+            if (!step.hasValue()) {
+              done = true;
+              return Maybe.nothing();
+            }
+            state = step.getValue().second();
+            return Maybe.just(step.getValue().first());
+          }
+        });
+      }
+    };
+  }
+
+  /**
+   * Turns a publisher into a sequence. It subscribes on the first call of {@link #next()} and
+   * keeps at most {@code bufferSize} elements requested but not yet consumed, so a fast
+   * publisher can't run ahead of the consumer by more than that.
+   */
+  public static <T> AsyncSeq<T> fromPublisher(final Publisher<T> publisher, final int bufferSize) {
+    assert bufferSize > 0;
+    final int replenishThreshold = Math.max(1, bufferSize / 2);
+    return new AsyncSeq<T>() {
+      private final Object lock = new Object();
+      private final ArrayDeque<T> buffer = new ArrayDeque<T>();
+      private boolean subscribed = false;
+      private Subscription subscription;
+      private Promise<Maybe<T>> waiting;
+      private boolean done = false;
+      private Exception error;
+      private int consumed = 0;
+
+      @Override
+      public Promise<Maybe<T>> next() {
+        boolean subscribe = false;
+        Promise<Maybe<T>> result;
+        long replenish = 0;
+        Subscription s;
+        synchronized (lock) {
+          if (!subscribed) {
+            subscribed = subscribe = true;
+          }
+          if (!buffer.isEmpty()) {
+            result = Promise.unit(Maybe.just(buffer.poll()));
+            replenish = consume();
+          } else if (done) {
+            result = error == null ? Promise.unit(Maybe.<T>nothing()) : Promise.<Maybe<T>>failure(error);
+          } else {
+            result = waiting = new Promise<Maybe<T>>();
+          }
+          s = subscription;
+        }
+        if (subscribe) {
+          publisher.subscribe(new Subscriber<T>() {
+            @Override
+            public void onSubscribe(Subscription s) {
+              synchronized (lock) {
+                subscription = s;
+              }
+              s.request(bufferSize);
+            }
+
+            @Override
+            public void onNext(T element) {
+              Promise<Maybe<T>> w;
+              long replenish = 0;
+              Subscription s;
+              synchronized (lock) {
+                w = waiting;
+                waiting = null;
+                if (w == null) {
+                  buffer.add(element);
+                } else {
+                  replenish = consume();
+                }
+                s = subscription;
+              }
+              if (replenish > 0) {
+                s.request(replenish);
+              }
+              if (w != null) {
+                w.tryNotifySuccess(Maybe.just(element));
+              }
+            }
+
+            @Override
+            public void onError(Exception exception) {
+              end(exception);
+            }
+
+            @Override
+            public void onComplete() {
+              end(null);
+            }
+          });
+        } else if (replenish > 0) {
+          s.request(replenish);
+        }
+        return result;
+      }
+
+      /**
+       * Counts a consumed element, and returns how many more to request once enough of them
+       * have been consumed.
+       */
+      private long consume() {
+        if (++consumed < replenishThreshold) {
+          return 0;
+        }
+        long n = consumed;
+        consumed = 0;
+        return n;
+      }
+
+      private void end(Exception exception) {
+        Promise<Maybe<T>> w;
+        synchronized (lock) {
+          done = true;
+          error = exception;
+          w = waiting;
+          waiting = null;
+        }
+        if (w == null) {
+          return;
+        }
+        if (exception == null) {
+          w.tryNotifySuccess(Maybe.<T>nothing());
+        } else {
+          w.tryNotifyFailure(exception);
+        }
+      }
+    };
+  }
+
+  @Override
+  public <R> AsyncSeq<R> fmap(final IF1<T, R> f) {
+    final AsyncSeq<T> source = this;
+    return new AsyncSeq<R>() {
+      @Override
+      public Promise<Maybe<R>> next() {
+        return source.next().fmap(new IF1<Maybe<T>, Maybe<R>>() {
+          @Override
+          public Maybe<R> apply(Maybe<T> element) {
+            return element.fmap(f);
+          }
+        });
+      }
+    };
+  }
+
+  /**
+   * Maps a function which returns a sequence over the elements and concatenates the results.
+   *
+   * <p>bind :: AsyncSeq T -> (T -> AsyncSeq R) -> AsyncSeq R
+   */
+  @Override
+  public <R> AsyncSeq<R> bind(IF1<T, ? extends Monad<R>> f) {
+    return new Concat<T, R>(this, f);
+  }
+
+  /**
+   * Keeps the elements which match the predicate.
+   *
+   * <p>filter :: (T -> Boolean) -> AsyncSeq T -> AsyncSeq T
+   */
+  public AsyncSeq<T> filter(final IF1<T, Boolean> predicate) {
+    final AsyncSeq<T> source = this;
+    return new AsyncSeq<T>() {
+      @Override
+      public Promise<Maybe<T>> next() {
+        return new Pull<T, Maybe<T>>(source) {
+          @Override
+          void onElement(Maybe<T> element) {
+            if (!element.hasValue() || predicate.apply(element.getValue())) {
+              complete(element);
+            } else {
+              pull();
+            }
+          }
+        }.start();
+      }
+    };
+  }
+
+  /**
+   * Takes the first {@code n} elements. The elements after them are never pulled.
+   *
+   * <p>take :: Int -> AsyncSeq T -> AsyncSeq T
+   */
+  public AsyncSeq<T> take(final int n) {
+    final AsyncSeq<T> source = this;
+    return new AsyncSeq<T>() {
+      private int count = 0;
+
+      @Override
+      public Promise<Maybe<T>> next() {
+        if (count >= n) {
+          return Promise.unit(Maybe.<T>nothing());
+        }
+        count++;
+        return source.next();
+      }
+    };
+  }
+
+  /**
+   * Groups the elements into lists of {@code n}. The last list may be shorter.
+   *
+   * <p>batch :: Int -> AsyncSeq T -> AsyncSeq [T]
+   */
+  public AsyncSeq<List<T>> batch(final int n) {
+    assert n > 0;
+    final AsyncSeq<T> source = this;
+    return new AsyncSeq<List<T>>() {
+      @Override
+      public Promise<Maybe<List<T>>> next() {
+        return new Pull<T, Maybe<List<T>>>(source) {
+          private final List<T> batch = new ArrayList<T>(n);
+
+          @Override
+          void onElement(Maybe<T> element) {
+            if (element.hasValue()) {
+              batch.add(element.getValue());
+              if (batch.size() < n) {
+                pull();
+                return;
+              }
+            }
+            complete(batch.isEmpty() ? Maybe.<List<T>>nothing() : Maybe.just(batch));
+          }
+        }.start();
+      }
+    };
+  }
+
+  /**
+   * Left fold over the whole sequence, one element at a time.
+   *
+   * <p>foldl :: (T -> R -> R) -> R -> AsyncSeq T -> Promise R
+   */
+  public <R> Promise<R> foldl(final IF2<T, R, R> f, final R initial) {
+    return new Pull<T, R>(this) {
+      private R result = initial;
+
+      @Override
+      void onElement(Maybe<T> element) {
+        if (element.hasValue()) {
+          result = f.apply(element.getValue(), result);
+          pull();
+        } else {
+          complete(result);
+        }
+      }
+    }.start();
+  }
+
+  /**
+   * Collects the whole sequence into a list. Only use it on sequences known to be small.
+   */
+  public Promise<List<T>> toList() {
+    return new Pull<T, List<T>>(this) {
+      private final List<T> result = new ArrayList<T>();
+
+      @Override
+      void onElement(Maybe<T> element) {
+        if (element.hasValue()) {
+          result.add(element.getValue());
+          pull();
+        } else {
+          complete(result);
+        }
+      }
+    }.start();
+  }
+
+  /**
+   * Pushes the elements to a subscriber as it requests them. Elements are pulled from this
+   * sequence only while there is outstanding demand. {@code seq::subscribe} is an
+   * {@link AsyncSeq.Publisher} of the sequence.
+   */
+  public void subscribe(Subscriber<? super T> subscriber) {
+    subscriber.onSubscribe(new SeqSubscription<T>(this, subscriber));
+  }
+
+  private static <T, R> void pull(AsyncSeq<T> source, Listener<Maybe<T>> listener, Promise<R> result) {
+    if (result.state() != Promise.State.PENDING) {
+      return;
+    }
+    try {
+      source.next().addListener(listener);
+    } catch (RuntimeException e) {
+      result.tryNotifyFailure(e);
+    }
+  }
+
+  /**
+   * Listener which keeps pulling elements from a sequence until {@link #onElement} completes the
+   * result. Each pull is a listener callback, which the trampoline of {@link Promise} runs in a
+   * loop, so pulling a long run of elements doesn't grow the stack.
+   */
+  private abstract static class Pull<T, R> implements Listener<Maybe<T>> {
+    private final AsyncSeq<T> source;
+    private final Promise<R> result = new Promise<R>();
+
+    Pull(AsyncSeq<T> source) {
+      this.source = source;
+    }
+
+    abstract void onElement(Maybe<T> element);
+
+    Promise<R> start() {
+      pull();
+      return result;
+    }
+
+    void pull() {
+      AsyncSeq.pull(source, this, result);
+    }
+
+    void complete(R value) {
+      result.tryNotifySuccess(value);
+    }
+
+    @Override
+    public void onSuccess(Maybe<T> element) {
+      try {
+        onElement(element);
+      } catch (RuntimeException e) {
+        result.tryNotifyFailure(e);
+      }
+    }
+
+    @Override
+    public void onFailure(Exception exception) {
+      result.tryNotifyFailure(exception);
+    }
+  }
+
+  /**
+   * Sequence of the concatenated results of {@link AsyncSeq#bind}. It remembers the current inner
+   * sequence, so each call of {@code next()} continues where the previous one left off.
+   */
+  private static final class Concat<T, R> extends AsyncSeq<R> {
+    private final AsyncSeq<T> outer;
+    private final IF1<T, ? extends Monad<R>> f;
+    private AsyncSeq<R> inner = empty();
+
+    Concat(AsyncSeq<T> outer, IF1<T, ? extends Monad<R>> f) {
+      this.outer = outer;
+      this.f = f;
+    }
+
+    @Override
+    public Promise<Maybe<R>> next() {
+      Promise<Maybe<R>> result = new Promise<Maybe<R>>();
+      pullInner(result);
+      return result;
+    }
+
+    private void pullInner(final Promise<Maybe<R>> result) {
+      pull(inner, new Listener<Maybe<R>>() {
+        @Override
+        public void onSuccess(Maybe<R> element) {
+          if (element.hasValue()) {
+            result.tryNotifySuccess(element);
+          } else {
+            pullOuter(result);
+          }
+        }
+
+        @Override
+        public void onFailure(Exception exception) {
+          result.tryNotifyFailure(exception);
+        }
+      }, result);
+    }
+
+    private void pullOuter(final Promise<Maybe<R>> result) {
+      pull(outer, new Listener<Maybe<T>>() {
+        @Override
+        public void onSuccess(Maybe<T> element) {
+          if (!element.hasValue()) {
+            result.tryNotifySuccess(Maybe.<R>nothing());
+            return;
+          }
+          try {
+            inner = (AsyncSeq<R>)f.apply(element.getValue());
+          } catch (RuntimeException e) {
+            result.tryNotifyFailure(e);
+            return;
+          }
+          pullInner(result);
+        }
+
+        @Override
+        public void onFailure(Exception exception) {
+          result.tryNotifyFailure(exception);
+        }
+      }, result);
+    }
+  }
+
+  /**
+   * Subscription of {@link AsyncSeq#subscribe}, which pulls one element at a time from the
+   * sequence while the subscriber has outstanding demand.
+   */
+  private static final class SeqSubscription<T> implements Subscription, Listener<Maybe<T>> {
+    private final AsyncSeq<T> source;
+    private final Subscriber<? super T> subscriber;
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicBoolean stopped = new AtomicBoolean();
+
+    SeqSubscription(AsyncSeq<T> source, Subscriber<? super T> subscriber) {
+      this.source = source;
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        onFailure(new IllegalArgumentException("Non-positive request: " + n));
+        return;
+      }
+      long previous;
+      long next;
+      do {
+        previous = demand.get();
+        next = previous + n < 0 ? Long.MAX_VALUE : previous + n;
+      } while (!demand.compareAndSet(previous, next));
+      // Only the request which raises the demand from zero starts pulling, so there is never
+      // more than one pull in flight.
+      if (previous == 0) {
+        pullNext();
+      }
+    }
+
+    @Override
+    public void cancel() {
+      stopped.set(true);
+    }
+
+    @Override
+    public void onSuccess(Maybe<T> element) {
+      if (stopped.get()) {
+        return;
+      }
+      if (!element.hasValue()) {
+        if (stopped.compareAndSet(false, true)) {
+          subscriber.onComplete();
+        }
+        return;
+      }
+      subscriber.onNext(element.getValue());
+      if (demand.get() == Long.MAX_VALUE || demand.decrementAndGet() > 0) {
+        pullNext();
+      }
+    }
+
+    @Override
+    public void onFailure(Exception exception) {
+      if (stopped.compareAndSet(false, true)) {
+        subscriber.onError(exception);
+      }
+    }
+
+    private void pullNext() {
+      if (stopped.get()) {
+        return;
+      }
+      try {
+        source.next().addListener(this);
+      } catch (RuntimeException e) {
+        onFailure(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,236 @@
+package fava.promise;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Timer for the deadlines of promises. Arming and cancelling a timeout are O(1) and don't take
+ * a lock, and all the timeouts share a single daemon thread, so there can be a large number of
+ * them outstanding at the same time.
+ *
+ * <p>Timeouts are kept in a wheel of buckets, each bucket covering one tick. Every tick the
+ * worker thread expires the timeouts in the current bucket, so a timeout fires up to one tick
+ * late. Timeouts further away than one rotation of the wheel stay in their bucket for the
+ * remaining rounds.
+ *
+ * <p>The worker thread only collects the expired timeouts and hands their tasks to an executor.
+ * A task completes a promise, which runs the continuations of the promise on the same thread,
+ * and those may block, e.g. awaiting another delay, without holding up the other timeouts.
+ */
+final class HashedWheelTimer {
+  private static final HashedWheelTimer SHARED = new HashedWheelTimer(10, TimeUnit.MILLISECONDS, 512,
+      // Not the common ForkJoinPool: it may have a single worker, which a blocking task would
+      // starve the other expired tasks of.
+      Executors.newCachedThreadPool(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable task) {
+          Thread thread = new Thread(task, "fava-timer-task");
+          thread.setDaemon(true);
+          return thread;
+        }
+      }));
+
+  /**
+   * Handle of a scheduled task.
+   */
+  static final class Timeout implements Runnable {
+    private static final int INIT = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final HashedWheelTimer timer;
+    private final Runnable task;
+    private final long deadline;
+    private final AtomicInteger state = new AtomicInteger(INIT);
+
+    // Only accessed by the worker thread.
+    private long remainingRounds;
+    private Bucket bucket;
+    private Timeout prev;
+    private Timeout next;
+
+    Timeout(HashedWheelTimer timer, Runnable task, long deadline) {
+      this.timer = timer;
+      this.task = task;
+      this.deadline = deadline;
+    }
+
+    /**
+     * Cancels the task if it hasn't run yet.
+     *
+     * @return true if this call cancelled the task
+     */
+    boolean cancel() {
+      if (!state.compareAndSet(INIT, CANCELLED)) {
+        return false;
+      }
+      timer.cancelledTimeouts.add(this);
+      return true;
+    }
+
+    /**
+     * Runs the task on a thread of the executor.
+     */
+    @Override
+    public void run() {
+      try {
+        task.run();
+      } catch (RuntimeException e) {
+        // A failing task must not kill the thread.
+      }
+    }
+
+    private void expire() {
+      if (state.compareAndSet(INIT, EXPIRED)) {
+        try {
+          timer.executor.execute(this);
+        } catch (RuntimeException e) {
+          // A rejected task must not stop the timer.
+        }
+      }
+    }
+  }
+
+  /**
+   * Doubly linked list of the timeouts in one slot of the wheel.
+   */
+  private static final class Bucket {
+    private Timeout head;
+    private Timeout tail;
+
+    void add(Timeout timeout) {
+      timeout.bucket = this;
+      if (head == null) {
+        head = tail = timeout;
+      } else {
+        tail.next = timeout;
+        timeout.prev = tail;
+        tail = timeout;
+      }
+    }
+
+    void remove(Timeout timeout) {
+      if (timeout.prev != null) {
+        timeout.prev.next = timeout.next;
+      }
+      if (timeout.next != null) {
+        timeout.next.prev = timeout.prev;
+      }
+      if (timeout == head) {
+        head = timeout.next;
+      }
+      if (timeout == tail) {
+        tail = timeout.prev;
+      }
+      timeout.prev = null;
+      timeout.next = null;
+      timeout.bucket = null;
+    }
+
+    void expire(long deadline) {
+      Timeout timeout = head;
+      while (timeout != null) {
+        Timeout next = timeout.next;
+        if (timeout.remainingRounds <= 0 && timeout.deadline <= deadline) {
+          remove(timeout);
+          timeout.expire();
+        } else if (timeout.remainingRounds > 0) {
+          timeout.remainingRounds--;
+        }
+        timeout = next;
+      }
+    }
+  }
+
+  private final long tickNanos;
+  private final Executor executor;
+  private final Bucket[] wheel;
+  private final int mask;
+  private final Queue<Timeout> newTimeouts = new ConcurrentLinkedQueue<Timeout>();
+  private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<Timeout>();
+  private final long startTime = System.nanoTime();
+  private final AtomicInteger started = new AtomicInteger();
+
+  /**
+   * Creates a timer whose expired tasks run on {@code executor}.
+   */
+  HashedWheelTimer(long tickDuration, TimeUnit unit, int wheelSize, Executor executor) {
+    assert Integer.bitCount(wheelSize) == 1;
+    this.tickNanos = unit.toNanos(tickDuration);
+    this.executor = executor;
+    this.wheel = new Bucket[wheelSize];
+    for (int i = 0; i < wheelSize; i++) {
+      wheel[i] = new Bucket();
+    }
+    this.mask = wheelSize - 1;
+  }
+
+  /**
+   * Returns the timer shared by all promises.
+   */
+  static HashedWheelTimer shared() {
+    return SHARED;
+  }
+
+  /**
+   * Schedules a task to run once after the delay.
+   */
+  Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+    if (started.get() == 0 && started.compareAndSet(0, 1)) {
+      Thread worker = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          work();
+        }
+      }, "fava-timer");
+      worker.setDaemon(true);
+      worker.start();
+    }
+    Timeout timeout = new Timeout(this, task, System.nanoTime() - startTime + unit.toNanos(delay));
+    newTimeouts.add(timeout);
+    return timeout;
+  }
+
+  private void work() {
+    long tick = 0;
+    while (true) {
+      long deadline = tickNanos * (tick + 1);
+      long sleepNanos;
+      while ((sleepNanos = deadline - (System.nanoTime() - startTime)) > 0) {
+        LockSupport.parkNanos(this, sleepNanos);
+      }
+      removeCancelled();
+      addNew(tick);
+      wheel[(int)(tick & mask)].expire(deadline);
+      tick++;
+    }
+  }
+
+  private void addNew(long currentTick) {
+    Timeout timeout;
+    while ((timeout = newTimeouts.poll()) != null) {
+      if (timeout.state.get() != Timeout.INIT) {
+        continue;
+      }
+      long ticks = timeout.deadline / tickNanos;
+      timeout.remainingRounds = (ticks - currentTick) / wheel.length;
+      // Timeouts which are already due go into the current bucket.
+      wheel[(int)(Math.max(ticks, currentTick) & mask)].add(timeout);
+    }
+  }
+
+  private void removeCancelled() {
+    Timeout timeout;
+    while ((timeout = cancelledTimeouts.poll()) != null) {
+      if (timeout.bucket != null) {
+        timeout.bucket.remove(timeout);
+      }
+    }
+  }
+}
@@ -1,6 +1,14 @@
 package fava.promise;
 
-import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
 
 import fava.Functions.IF1;
 import fava.functor.Functor;
@@ -15,6 +23,13 @@ import fava.monad.Monad;
  * asynchronous values, such as asynchronous HTTP response or asynchronous
  * database query result.
  * 
+ * <p>Subclasses complete the promise with {@link #notifySuccess} or
+ * {@link #notifyFailure} (or their {@code tryNotify} variants), and read it with
+ * {@link #state()}, {@link #getValue()} and {@link #getException()}. These replace
+ * the protected {@code state}, {@code value}, {@code exception} and
+ * {@code listeners} fields of earlier versions, which are gone now that the state
+ * is updated atomically.
+ * 
  * @author dagang.wei (weidagang@gmail.com)
  */
 public class Promise<T> implements Functor<T>, Monad<T> {
@@ -25,6 +40,7 @@ public class Promise<T> implements Functor<T>, Monad<T> {
     PENDING,
     SUCCEEDED,
     FAILED,
+    CANCELLED,
   }
 
   /**
@@ -35,51 +51,166 @@ public class Promise<T> implements Functor<T>, Monad<T> {
     void onFailure(Exception exception);
   }
 
-  protected State state = State.PENDING;
-  protected T value;
-  protected Exception exception;
-  protected ArrayList<Listener<T>> listeners = new ArrayList<Listener<T>>();
+  /**
+   * The final state of a completed promise, with its value or exception.
+   */
+  private static final class Outcome {
+    final State state;
+    final Object value;
+    final Exception exception;
+
+    Outcome(State state, Object value, Exception exception) {
+      this.state = state;
+      this.value = value;
+      this.exception = exception;
+    }
+  }
+
+  /**
+   * Node of the Treiber stack of listeners.
+   */
+  private static final class ListenerNode<T> {
+    final Listener<T> listener;
+    ListenerNode<T> next;
+
+    ListenerNode(Listener<T> listener) {
+      this.listener = listener;
+    }
+  }
+
+  @SuppressWarnings("rawtypes")
+  private static final AtomicReferenceFieldUpdater<Promise, Object> HEAD =
+      AtomicReferenceFieldUpdater.newUpdater(Promise.class, Object.class, "head");
+
+  /**
+   * While the promise is pending, it is the top of the Treiber stack of listeners (null if there
+   * are no listeners). Once the promise is completed, it is the {@link Outcome}. Both completing
+   * the promise and registering a listener are a single CAS on this field, so a listener can't be
+   * lost and a promise can't be completed twice.
+   */
+  private volatile Object head;
+
+  /**
+   * The executor used by {@link #fmapAsync(IF1)} and {@link #bindAsync(IF1)}.
+   */
+  private volatile Executor defaultExecutor;
+
+  /**
+   * The promise this promise is derived from, e.g. by {@code fmap} or {@code bind}, which gets
+   * cancelled when this promise is cancelled. It is cleared once this promise completes.
+   */
+  private volatile Promise<?> upstream;
+
+  public Promise() {
+  }
+
+  private Promise(Outcome outcome) {
+    this.head = outcome;
+  }
 
   /**
    * Lifts a value into a promise.
    */
   public static <T> Promise<T> unit(T value) {
-    Promise<T> promise = new Promise<T>();
-    promise.state = State.SUCCEEDED;
-    promise.value = value;
-    return promise;
+    return new Promise<T>(new Outcome(State.SUCCEEDED, value, null));
   }
 
   /**
    * Lifts a failure into a promise.
    */
   public static <T> Promise<T> failure(Exception exception) {
-    Promise<T> promise = new Promise<T>();
-    promise.state = State.FAILED;
-    promise.exception = exception;
-    return promise;
+    return new Promise<T>(new Outcome(State.FAILED, null, exception));
   }
 
   /**
    * Returns the current state of the promise.
    */
   public State state() {
-    return state;
+    Object h = head;
+    return h instanceof Outcome ? ((Outcome)h).state : State.PENDING;
   }
 
   /**
-   * Awaits until the promise is fulfilled or rejected.
+   * Awaits until the promise is fulfilled or rejected. The calling thread blocks
+   * until the promise gets completed. If the thread is interrupted while waiting,
+   * it keeps waiting and the interrupt status is restored before returning.
    * 
    * @return the value if succeeded, or null if failed.
    */
   public T await() {
-    while (state == State.PENDING) {
-      try {
-        Thread.sleep(1); //TODO: change the implementation later.
-      } catch (Exception e) {
+    if (state() == State.PENDING) {
+      boolean interrupted = false;
+      Waiter<T> waiter = new Waiter<T>();
+      addListener(waiter);
+      Trampoline trampoline = Trampoline.CURRENT.get();
+      while (state() == State.PENDING) {
+        if (!trampoline.runQueued()) {
+          LockSupport.park(this);
+        }
+        interrupted |= Thread.interrupted();
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
       }
     }
-    return state == State.SUCCEEDED ? value : null;
+    return valueOrNull();
+  }
+
+  /**
+   * Awaits until the promise is fulfilled or rejected, or the calling thread is
+   * interrupted.
+   *
+   * @return the value if succeeded, or null if failed.
+   * @throws InterruptedException if the thread is interrupted while waiting
+   */
+  public T awaitInterruptibly() throws InterruptedException {
+    if (state() == State.PENDING) {
+      Waiter<T> waiter = new Waiter<T>();
+      addListener(waiter);
+      Trampoline trampoline = Trampoline.CURRENT.get();
+      while (state() == State.PENDING) {
+        if (Thread.interrupted()) {
+          abandon(waiter);
+          throw new InterruptedException();
+        }
+        if (!trampoline.runQueued()) {
+          LockSupport.park(this);
+        }
+      }
+    }
+    return valueOrNull();
+  }
+
+  /**
+   * Awaits at most the given time until the promise is fulfilled or rejected.
+   *
+   * @return the value if succeeded, or null if failed.
+   * @throws InterruptedException if the thread is interrupted while waiting
+   * @throws TimeoutException if the promise is still pending after the timeout
+   */
+  public T await(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+    if (state() == State.PENDING) {
+      long deadline = System.nanoTime() + unit.toNanos(timeout);
+      Waiter<T> waiter = new Waiter<T>();
+      addListener(waiter);
+      Trampoline trampoline = Trampoline.CURRENT.get();
+      while (state() == State.PENDING) {
+        if (trampoline.runQueued()) {
+          continue;
+        }
+        long remaining = deadline - System.nanoTime();
+        if (Thread.interrupted()) {
+          abandon(waiter);
+          throw new InterruptedException();
+        }
+        if (remaining <= 0) {
+          abandon(waiter);
+          throw new TimeoutException();
+        }
+        LockSupport.parkNanos(this, remaining);
+      }
+    }
+    return valueOrNull();
   }
 
   /**
@@ -88,19 +219,21 @@ public class Promise<T> implements Functor<T>, Monad<T> {
    * 
    * <p>Precondition: state == SUCCEEDED || state == FAILED
    */
+  @SuppressWarnings("unchecked")
   public T getValue() {
-    assert state == State.PENDING || state == State.FAILED;
-    return state == State.SUCCEEDED ? value: failureToValue();
+    assert state() != State.PENDING;
+    Outcome outcome = (Outcome)head;
+    return outcome.state == State.SUCCEEDED ? (T)outcome.value : failureToValue();
   }
 
   /**
-   * Returns the exception.
+   * Returns the exception. It is a {@link CancellationException} if the promise was cancelled.
    *
-   * <p>Precondition: state == State.FAILED
+   * <p>Precondition: state == State.FAILED || state == State.CANCELLED
    */
   public Exception getException() {
-    assert state == State.FAILED;
-    return exception;
+    assert state() == State.FAILED || state() == State.CANCELLED;
+    return ((Outcome)head).exception;
   }
 
   /**
@@ -108,29 +241,42 @@ public class Promise<T> implements Functor<T>, Monad<T> {
    * will be called later on when the promise gets fulfilled to rejected. Otherwise,
    * the listener will be called immediately.
    */
+  @SuppressWarnings("unchecked")
   public final void addListener(Listener<T> listener) {
-    if (state == State.SUCCEEDED) {
-      listener.onSuccess(value);
-    } else if (state == State.FAILED) {
-      listener.onFailure(exception);
-    } else if (state == State.PENDING) {
-      listeners.add(listener);
+    ListenerNode<T> node = null;
+    while (true) {
+      Object h = head;
+      if (h instanceof Outcome) {
+        dispatch(listener, (Outcome)h);
+        return;
+      }
+      if (node == null) {
+        node = new ListenerNode<T>(listener);
+      }
+      node.next = (ListenerNode<T>)h;
+      if (HEAD.compareAndSet(this, h, node)) {
+        return;
+      }
     }
   }
 
   @Override
   public <R> Promise<R> fmap(IF1<T, R> f) {
     final Promise<R> promiseR = new Promise<R>() {};
+    promiseR.upstream = this;
 
     this.addListener(new Listener<T>() {
       @Override
       public void onSuccess(T value) {
-        promiseR.notifySuccess(f.apply(value));
+        // Nobody is interested in the result any more if promiseR has been cancelled.
+        if (promiseR.state() == State.PENDING) {
+          promiseR.tryNotifySuccess(f.apply(value));
+        }
       }
 
       @Override
       public void onFailure(Exception exception) {
-        promiseR.notifyFailure(exception);
+        promiseR.tryNotifyFailure(exception);
       }
     });
 
@@ -141,36 +287,214 @@ public class Promise<T> implements Functor<T>, Monad<T> {
   public <R> Promise<R> bind(IF1<T, ? extends Monad<R>> f) {
     // promiseR is the composition of "this" promise and "that promise.
     final Promise<R> promiseR = new Promise<R>() {};
+    promiseR.upstream = this;
 
     // callback for "this" promise 
     this.addListener(new Listener<T>() {
       @Override
       public void onSuccess(T value) {
-        Promise<R> that = (Promise<R>)f.apply(value);
-        assert that != null;
-        // callback for "that" promise
-        that.addListener(new Listener<R>() {
+        if (promiseR.state() == State.PENDING) {
+          promiseR.follow((Promise<R>)f.apply(value));
+        }
+      }
+
+      @Override
+      public void onFailure(Exception exception) {
+        promiseR.tryNotifyFailure(exception);
+      }
+    });
+
+    return promiseR;
+  }
+
+  /**
+   * Same as {@link #fmap(IF1)}, but {@code f} runs on the default executor of this promise
+   * instead of the thread which completes this promise.
+   */
+  public <R> Promise<R> fmapAsync(IF1<T, R> f) {
+    return fmapAsync(f, getDefaultExecutor());
+  }
+
+  /**
+   * Same as {@link #fmap(IF1)}, but {@code f} runs on {@code executor} instead of the thread
+   * which completes this promise, so that heavy transformations don't stall it. The returned
+   * promise uses {@code executor} as its default executor. If {@code f} throws, or the executor
+   * rejects the task, the returned promise fails.
+   */
+  public <R> Promise<R> fmapAsync(final IF1<T, R> f, final Executor executor) {
+    final Promise<R> promiseR = new Promise<R>() {};
+    promiseR.setDefaultExecutor(executor);
+    promiseR.upstream = this;
+
+    this.addListener(new Listener<T>() {
+      @Override
+      public void onSuccess(final T value) {
+        execute(executor, promiseR, new Runnable() {
           @Override
-          public void onSuccess(R value) {
-            promiseR.notifySuccess(value);
+          public void run() {
+            promiseR.tryNotifySuccess(f.apply(value));
           }
+        });
+      }
+
+      @Override
+      public void onFailure(Exception exception) {
+        promiseR.tryNotifyFailure(exception);
+      }
+    });
+
+    return promiseR;
+  }
+
+  /**
+   * Same as {@link #bind(IF1)}, but {@code f} runs on the default executor of this promise
+   * instead of the thread which completes this promise.
+   */
+  public <R> Promise<R> bindAsync(IF1<T, ? extends Monad<R>> f) {
+    return bindAsync(f, getDefaultExecutor());
+  }
 
+  /**
+   * Same as {@link #bind(IF1)}, but {@code f} runs on {@code executor} instead of the thread
+   * which completes this promise. The returned promise uses {@code executor} as its default
+   * executor. If {@code f} throws, or the executor rejects the task, the returned promise fails.
+   */
+  public <R> Promise<R> bindAsync(final IF1<T, ? extends Monad<R>> f, final Executor executor) {
+    final Promise<R> promiseR = new Promise<R>() {};
+    promiseR.setDefaultExecutor(executor);
+    promiseR.upstream = this;
+
+    this.addListener(new Listener<T>() {
+      @Override
+      public void onSuccess(final T value) {
+        execute(executor, promiseR, new Runnable() {
           @Override
-          public void onFailure(Exception exception) {
-            promiseR.notifyFailure(exception);
+          public void run() {
+            promiseR.follow((Promise<R>)f.apply(value));
           }
         });
       }
 
       @Override
       public void onFailure(Exception exception) {
-        promiseR.notifyFailure(exception);
+        promiseR.tryNotifyFailure(exception);
       }
     });
 
     return promiseR;
   }
 
+  /**
+   * Returns a promise which is completed like this promise, unless this promise is still
+   * pending after the timeout, in which case it fails with a {@link PromiseTimeoutException}.
+   * The deadline is armed on a timer shared by all promises, and disarmed as soon as this
+   * promise completes, so it costs no thread.
+   */
+  public Promise<T> withTimeout(final long timeout, final TimeUnit unit) {
+    final Promise<T> promiseT = new Promise<T>();
+    promiseT.upstream = this;
+    final HashedWheelTimer.Timeout deadline = HashedWheelTimer.shared().schedule(new Runnable() {
+      @Override
+      public void run() {
+        promiseT.tryNotifyFailure(new PromiseTimeoutException("Timed out after " + timeout + " " + unit));
+      }
+    }, timeout, unit);
+
+    addListener(new Listener<T>() {
+      @Override
+      public void onSuccess(T value) {
+        deadline.cancel();
+        promiseT.tryNotifySuccess(value);
+      }
+
+      @Override
+      public void onFailure(Exception exception) {
+        deadline.cancel();
+        promiseT.tryNotifyFailure(exception);
+      }
+    });
+
+    return promiseT;
+  }
+
+  /**
+   * Returns a {@link CompletableFuture} which is completed with the value or the exception of
+   * this promise. The future is completed by a single listener registered on this promise.
+   * Cancelling the future cancels this promise.
+   *
+   * @see Promises#fromFuture(java.util.concurrent.CompletionStage)
+   */
+  public CompletableFuture<T> toCompletableFuture() {
+    final CompletableFuture<T> future = new CompletableFuture<T>() {
+      @Override
+      public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        Promise.this.cancel();
+        return cancelled;
+      }
+    };
+    addListener(new Listener<T>() {
+      @Override
+      public void onSuccess(T value) {
+        future.complete(value);
+      }
+
+      @Override
+      public void onFailure(Exception exception) {
+        future.completeExceptionally(exception);
+      }
+    });
+    return future;
+  }
+
+  /**
+   * Returns the executor used by {@link #fmapAsync(IF1)} and {@link #bindAsync(IF1)}. Unless
+   * configured with {@link #setDefaultExecutor(Executor)}, it is the common
+   * {@link ForkJoinPool}.
+   */
+  public Executor getDefaultExecutor() {
+    Executor executor = defaultExecutor;
+    return executor != null ? executor : ForkJoinPool.commonPool();
+  }
+
+  /**
+   * Configures the executor used by {@link #fmapAsync(IF1)} and {@link #bindAsync(IF1)}. See
+   * {@link Promises#virtualThreadExecutor()} for running callbacks on virtual threads.
+   */
+  public void setDefaultExecutor(Executor executor) {
+    this.defaultExecutor = executor;
+  }
+
+  /**
+   * Cancels the promise if it is still pending. The listeners are notified with a
+   * {@link CancellationException} and the state moves to CANCELLED. Then {@link #onCancel()} is
+   * called, and the cancellation propagates to the promise this promise is derived from, e.g.
+   * by {@code fmap} or {@code bind}, so that the upstream work can be abandoned as well.
+   *
+   * <p>Note that, like other futures libraries, it propagates even if the upstream promise has
+   * other consumers, which will then see the cancellation as well.
+   *
+   * @return true if this call cancelled the promise
+   */
+  public boolean cancel() {
+    if (!tryNotifyFailure(new CancellationException())) {
+      return false;
+    }
+    // Walks the chain in a loop rather than recursively, so that cancelling the end of a long
+    // chain of binds doesn't overflow the stack.
+    Promise<?> promise = this;
+    while (true) {
+      promise.onCancel();
+      // Read after the state change, see follow().
+      Promise<?> up = promise.upstream;
+      promise.upstream = null;
+      if (up == null || !up.tryNotifyFailure(new CancellationException())) {
+        return true;
+      }
+      promise = up;
+    }
+  }
+
   @Override
   public boolean equals(Object obj) {
       if (!(obj instanceof Promise<?>)) {
@@ -181,7 +505,7 @@ public class Promise<T> implements Functor<T>, Monad<T> {
       Object v1 = this.await();
       Object v2 = that.await();
 
-      return this.state == that.state
+      return this.state() == that.state()
           ? (v1 != null ? v1.equals(v2) : (v2 == null))
           : false;
   }
@@ -189,31 +513,57 @@ public class Promise<T> implements Functor<T>, Monad<T> {
   /**
    * Fulfills the promise, moves the state from PENDING to SUCCEEDED. It's intended
    * to be called inside of subclasses. 
+   *
+   * @throws IllegalStateException if the promise is already completed
    */
   protected final void notifySuccess(T value) {
-    assert state == State.PENDING;
-
-    this.value = value;
-    this.state = State.SUCCEEDED;
-    for (Listener<T> listener : listeners) {
-      listener.onSuccess(value);
+    if (!tryNotifySuccess(value)) {
+      throw new IllegalStateException("Promise already completed");
     }
   }
 
   /**
    * Rejects the promise, moves the state from PENDING to FAILED. It's intended to be
    * called inside of subclasses.
+   *
+   * @throws IllegalStateException if the promise is already completed
    */
   protected final void notifyFailure(Exception exception) {
-    assert state == State.PENDING;
-
-    this.exception = exception;
-    this.state = State.FAILED;
-    for (Listener<T> listener : listeners) {
-      listener.onFailure(exception);
+    if (!tryNotifyFailure(exception)) {
+      throw new IllegalStateException("Promise already completed");
     }
   }
 
+  /**
+   * Fulfills the promise if it is still pending. It is for the cases where several
+   * parties race to complete the same promise and only the first one wins.
+   *
+   * @return true if this call completed the promise
+   */
+  protected final boolean tryNotifySuccess(T value) {
+    return complete(new Outcome(State.SUCCEEDED, value, null));
+  }
+
+  /**
+   * Rejects the promise if it is still pending. A {@link CancellationException} moves the
+   * state to CANCELLED rather than FAILED, so that cancellation shows up downstream.
+   *
+   * @return true if this call completed the promise
+   * @see #tryNotifySuccess(Object)
+   */
+  protected final boolean tryNotifyFailure(Exception exception) {
+    State state = exception instanceof CancellationException ? State.CANCELLED : State.FAILED;
+    return complete(new Outcome(state, null, exception));
+  }
+
+  /**
+   * Called after the promise is cancelled by {@link #cancel()}. Subclasses can override it to
+   * abort the underlying work, such as closing a socket. The default implementation does
+   * nothing.
+   */
+  protected void onCancel() {
+  }
+
   /**
    * Gets the value for the failure case. If the promise failed, the default
    * implementation is returning null, but subclasses can override it to return
@@ -224,7 +574,289 @@ public class Promise<T> implements Functor<T>, Monad<T> {
    * @return the corresponding value for the failure.
    */
   protected T failureToValue() {
-    assert state == State.FAILED;
+    assert state() == State.FAILED || state() == State.CANCELLED;
     return null;
   }
+
+  /**
+   * Moves the promise out of PENDING with a single CAS, then notifies the listeners which were
+   * registered before, in the order of registration. The waiters are all woken up first, and
+   * the callbacks are queued together on the trampoline, so that a callback which throws
+   * neither strands a waiter nor skips the callbacks after it.
+   */
+  @SuppressWarnings("unchecked")
+  private boolean complete(Outcome outcome) {
+    while (true) {
+      Object h = head;
+      if (h instanceof Outcome) {
+        return false;
+      }
+      if (HEAD.compareAndSet(this, h, outcome)) {
+        if (outcome.state != State.CANCELLED) {
+          upstream = null;
+        }
+        // Reverse the stack, nobody else can see the nodes any more.
+        ListenerNode<T> node = (ListenerNode<T>)h;
+        ListenerNode<T> reversed = null;
+        while (node != null) {
+          ListenerNode<T> next = node.next;
+          node.next = reversed;
+          reversed = node;
+          node = next;
+        }
+        Trampoline trampoline = Trampoline.CURRENT.get();
+        for (node = reversed; node != null; node = node.next) {
+          if (node.listener instanceof Waiter) {
+            ((Waiter<T>)node.listener).wakeUp();
+          } else {
+            trampoline.add(node.listener, outcome);
+          }
+        }
+        trampoline.drain();
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Gives up the wait of a thread which timed out or was interrupted in {@code await}, and
+   * unlinks its waiter from the listeners, so that a promise which is polled many times while
+   * it stays pending doesn't accumulate dead waiters. The unlinking replaces the stack with a
+   * copy of its live nodes in a single CAS, so it can't race with concurrent pushes or with
+   * {@link #complete}, which owns the nodes once it has swapped in the outcome.
+   */
+  @SuppressWarnings("unchecked")
+  private void abandon(Waiter<T> waiter) {
+    waiter.thread = null;
+    while (true) {
+      Object h = head;
+      if (!(h instanceof ListenerNode)) {
+        return;
+      }
+      boolean removed = false;
+      ListenerNode<T> live = null;
+      ListenerNode<T> tail = null;
+      for (ListenerNode<T> node = (ListenerNode<T>)h; node != null; node = node.next) {
+        if (node.listener instanceof Waiter && ((Waiter<T>)node.listener).thread == null) {
+          removed = true;
+          continue;
+        }
+        ListenerNode<T> copy = new ListenerNode<T>(node.listener);
+        if (tail == null) {
+          live = copy;
+        } else {
+          tail.next = copy;
+        }
+        tail = copy;
+      }
+      if (!removed || HEAD.compareAndSet(this, h, live)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Completes this promise like {@code that} promise, which becomes the upstream of this
+   * promise. It is used by {@code bind} once {@code that} promise is known.
+   */
+  private void follow(final Promise<T> that) {
+    assert that != null;
+    // Either cancel() sees the new upstream, or this sees the cancellation.
+    upstream = that;
+    if (state() == State.CANCELLED) {
+      that.cancel();
+      return;
+    }
+    that.addListener(new Listener<T>() {
+      @Override
+      public void onSuccess(T value) {
+        tryNotifySuccess(value);
+      }
+
+      @Override
+      public void onFailure(Exception exception) {
+        tryNotifyFailure(exception);
+      }
+    });
+  }
+
+  /**
+   * Runs {@code task} on {@code executor}. If the task throws or can't be submitted,
+   * {@code promise} fails instead, so that it never stays pending forever.
+   */
+  private static void execute(Executor executor, final Promise<?> promise, final Runnable task) {
+    try {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          if (promise.state() != State.PENDING) {
+            // Cancelled before the task got to run.
+            return;
+          }
+          try {
+            task.run();
+          } catch (RuntimeException e) {
+            promise.tryNotifyFailure(e);
+          }
+        }
+      });
+    } catch (RuntimeException e) {
+      promise.tryNotifyFailure(e);
+    }
+  }
+
+  /**
+   * Notifies a listener of the outcome through the trampoline of the current thread, except
+   * for the waiters of {@code await}, which are woken up right away.
+   */
+  private static <T> void dispatch(Listener<T> listener, Outcome outcome) {
+    if (listener instanceof Waiter) {
+      // A blocked thread must wake up as soon as the promise completes, not once the callback
+      // which completed it returns, so waiters bypass the trampoline.
+      ((Waiter<T>)listener).wakeUp();
+      return;
+    }
+    Trampoline.CURRENT.get().dispatch(listener, outcome);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> void notifyListener(Listener<T> listener, Outcome outcome) {
+    if (outcome.state == State.SUCCEEDED) {
+      listener.onSuccess((T)outcome.value);
+    } else {
+      listener.onFailure(outcome.exception);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private T valueOrNull() {
+    Outcome outcome = (Outcome)head;
+    return outcome.state == State.SUCCEEDED ? (T)outcome.value : null;
+  }
+
+  /**
+   * Per-thread run loop for listener callbacks. A callback often completes another promise or
+   * registers a listener on a completed one, e.g. in a long chain of {@code bind}s, which would
+   * call the next callback recursively and grow the stack with the length of the chain. Instead,
+   * callbacks dispatched while the thread is already running one are queued, and the outermost
+   * dispatch drains the queue in a loop, so the stack depth stays constant.
+   *
+   * <p>A consequence is that a listener added to a completed promise from inside another
+   * callback runs after that callback returns, rather than immediately.
+   */
+  private static final class Trampoline {
+    static final ThreadLocal<Trampoline> CURRENT = new ThreadLocal<Trampoline>() {
+      @Override
+      protected Trampoline initialValue() {
+        return new Trampoline();
+      }
+    };
+
+    /**
+     * A callback waiting in the queue.
+     */
+    private static final class Dispatch {
+      final Listener<?> listener;
+      final Outcome outcome;
+
+      Dispatch(Listener<?> listener, Outcome outcome) {
+        this.listener = listener;
+        this.outcome = outcome;
+      }
+    }
+
+    private final ArrayDeque<Dispatch> queue = new ArrayDeque<Dispatch>();
+    private boolean running = false;
+    private RuntimeException failure;
+
+    /**
+     * Runs the callback, or queues it if the thread is already running one.
+     */
+    void dispatch(Listener<?> listener, Outcome outcome) {
+      add(listener, outcome);
+      drain();
+    }
+
+    /**
+     * Queues the callback without running it, see {@link #drain()}.
+     */
+    void add(Listener<?> listener, Outcome outcome) {
+      queue.add(new Dispatch(listener, outcome));
+    }
+
+    /**
+     * Runs the queued callbacks, unless the thread is already running one, in which case the
+     * outermost drain runs them. A callback which throws doesn't stop the other ones, the first
+     * exception is rethrown once the queue is empty.
+     */
+    void drain() {
+      if (running) {
+        return;
+      }
+
+      running = true;
+      try {
+        Dispatch next;
+        while ((next = queue.poll()) != null) {
+          run(next.listener, next.outcome);
+        }
+      } finally {
+        running = false;
+      }
+      RuntimeException e = failure;
+      failure = null;
+      if (e != null) {
+        throw e;
+      }
+    }
+
+    /**
+     * Runs one queued callback if the thread is draining the queue, and returns false if there
+     * is none. A callback which awaits a promise calls it while waiting, because the promise may
+     * be completed by one of the callbacks queued behind it on the same thread. An exception
+     * from the queued callback is kept for the outermost dispatch to rethrow, rather than
+     * escaping from the {@code await} of an unrelated callback.
+     */
+    boolean runQueued() {
+      Dispatch next = running ? queue.poll() : null;
+      if (next == null) {
+        return false;
+      }
+      run(next.listener, next.outcome);
+      return true;
+    }
+
+    private void run(Listener<?> listener, Outcome outcome) {
+      try {
+        notifyListener(listener, outcome);
+      } catch (RuntimeException e) {
+        failure = failure != null ? failure : e;
+      }
+    }
+  }
+
+  /**
+   * Listener which wakes up a thread blocked in {@code await}.
+   */
+  private static final class Waiter<T> implements Listener<T> {
+    volatile Thread thread = Thread.currentThread();
+
+    @Override
+    public void onSuccess(T value) {
+      wakeUp();
+    }
+
+    @Override
+    public void onFailure(Exception exception) {
+      wakeUp();
+    }
+
+    private void wakeUp() {
+      Thread t = thread;
+      if (t != null) {
+        thread = null;
+        LockSupport.unpark(t);
+      }
+    }
+  }
 }
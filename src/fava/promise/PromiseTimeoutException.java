@@ -0,0 +1,16 @@
+package fava.promise;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The exception of a promise which failed because it wasn't completed before its deadline.
+ *
+ * @see Promise#withTimeout(long, java.util.concurrent.TimeUnit)
+ */
+public class PromiseTimeoutException extends TimeoutException {
+  private static final long serialVersionUID = 1L;
+
+  public PromiseTimeoutException(String message) {
+    super(message);
+  }
+}
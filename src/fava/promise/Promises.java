@@ -2,14 +2,34 @@ package fava.promise;
 
 import static fava.Currying.curry;
 
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 
 import fava.Composing;
 import fava.Currying.F1;
 import fava.Currying.F2;
+import fava.Currying.F3;
 import fava.Functions.IF1;
 import fava.Functions.IF2;
-import fava.data.Lists;
+import fava.Functions.IF3;
+import fava.Functions.IF4;
+import fava.data.Maybe;
 import fava.promise.Promise.Listener;
 
 /**
@@ -38,112 +58,298 @@ public class Promises {
     return Promises.<T, R>fmap().apply(f);
   }
 
+  /**
+   * Curried form of {@link Promise#fmapAsync(IF1, Executor)}.
+   */
+  public static <T, R> F1<Promise<T>, Promise<R>> fmapAsync(final IF1<T, R> f, final Executor executor) {
+    return new F1<Promise<T>, Promise<R>>() {
+      @Override
+      public Promise<R> apply(Promise<T> promiseT) {
+        return promiseT.fmapAsync(f, executor);
+      }
+    };
+  }
+
+  /**
+   * Curried form of {@link Promise#bindAsync(IF1, Executor)}.
+   */
+  public static <T, R> F1<Promise<T>, Promise<R>> flatMapAsync(final IF1<T, Promise<R>> f, final Executor executor) {
+    return new F1<Promise<T>, Promise<R>>() {
+      @Override
+      public Promise<R> apply(Promise<T> promiseT) {
+        return promiseT.bindAsync(f, executor);
+      }
+    };
+  }
+
+  /**
+   * Returns an executor which runs each task on a new virtual thread, or nothing if the running
+   * JVM doesn't support virtual threads (they need Java 21 or later). For example,
+   *
+   * <p>{@code promise.setDefaultExecutor(virtualThreadExecutor().getValue())}
+   */
+  public static Maybe<Executor> virtualThreadExecutor() {
+    return VirtualThreads.EXECUTOR;
+  }
+
+  /**
+   * Lifts a function of type {@code T1 -> T2 -> R} into a function of type
+   * {@code Promise<T1> -> Promise<T2> -> Promise<R>}. The returned promise fails as soon as
+   * either promise fails, with the same exception.
+   *
+   * <p>The lifted function keeps no state of its own, each application joins its promises with
+   * a fresh atomic counter, so it can be shared between threads.
+   */
   public static <T1, T2, R> F2<Promise<T1>, Promise<T2>, Promise<R>> liftA(final F2<T1, T2, R> f) {
     return new F2<Promise<T1>, Promise<T2>, Promise<R>>() {
-      private Promise.State state1 = Promise.State.PENDING;
-      private Promise.State state2 = Promise.State.PENDING;
-      private T1 value1;
-      private T2 value2;
-
       @Override
       public Promise<R> apply(Promise<T1> promiseT1, Promise<T2> promiseT2) {
-        final Promise<R> promiseR = new Promise<R>() {};
+        return collect(promiseT1, promiseT2).fmap(new IF1<Object[], R>() {
+          @SuppressWarnings("unchecked")
+          @Override
+          public R apply(Object[] values) {
+            return f.apply((T1)values[0], (T2)values[1]);
+          }
+        });
+      }
+    };
+  }
 
-        promiseT1.addListener(new Listener<T1>() {
+  /**
+   * Lifts a function of type {@code T1 -> T2 -> T3 -> R} into a function of type
+   * {@code Promise<T1> -> Promise<T2> -> Promise<T3> -> Promise<R>}.
+   *
+   * @see #liftA(F2)
+   */
+  public static <T1, T2, T3, R> F3<Promise<T1>, Promise<T2>, Promise<T3>, Promise<R>> liftA3(
+      final IF3<T1, T2, T3, R> f) {
+    return new F3<Promise<T1>, Promise<T2>, Promise<T3>, Promise<R>>() {
+      @Override
+      public Promise<R> apply(Promise<T1> promiseT1, Promise<T2> promiseT2, Promise<T3> promiseT3) {
+        return collect(promiseT1, promiseT2, promiseT3).fmap(new IF1<Object[], R>() {
+          @SuppressWarnings("unchecked")
           @Override
-          public void onSuccess(T1 value) {
-            value1 = value;
-            state1 = Promise.State.SUCCEEDED;
-            synchronized(promiseR) {
-              if (state2 == Promise.State.SUCCEEDED) {
-                promiseR.notifySuccess(f.apply(value1, value2));
-              }
-            }
+          public R apply(Object[] values) {
+            return f.apply((T1)values[0], (T2)values[1], (T3)values[2]);
           }
+        });
+      }
+    };
+  }
 
+  /**
+   * Lifts a function of type {@code T1 -> T2 -> T3 -> T4 -> R} into a function of type
+   * {@code Promise<T1> -> Promise<T2> -> Promise<T3> -> Promise<T4> -> Promise<R>}.
+   *
+   * @see #liftA(F2)
+   */
+  public static <T1, T2, T3, T4, R> IF4<Promise<T1>, Promise<T2>, Promise<T3>, Promise<T4>, Promise<R>> liftA4(
+      final IF4<T1, T2, T3, T4, R> f) {
+    return new IF4<Promise<T1>, Promise<T2>, Promise<T3>, Promise<T4>, Promise<R>>() {
+      @Override
+      public Promise<R> apply(
+          Promise<T1> promiseT1, Promise<T2> promiseT2, Promise<T3> promiseT3, Promise<T4> promiseT4) {
+        return collect(promiseT1, promiseT2, promiseT3, promiseT4).fmap(new IF1<Object[], R>() {
+          @SuppressWarnings("unchecked")
           @Override
-          public void onFailure(Exception exception) {
-            promiseR.notifyFailure(exception);
-            synchronized(promiseR) {
-              if (state2 != Promise.State.FAILED) {
-                promiseR.notifyFailure(exception); // Only notify failure once.
-              }
-            }
+          public R apply(Object[] values) {
+            return f.apply((T1)values[0], (T2)values[1], (T3)values[2], (T4)values[3]);
           }
         });
+      }
+    };
+  }
+
+  /**
+   * Lifts a function of type {@code [T] -> R} into a function of type
+   * {@code [Promise<T>] -> Promise<R>}. The returned promise fails as soon as any of the
+   * promises fails, with the same exception.
+   *
+   * @see #all(List)
+   */
+  public static <T, R> F1<List<Promise<T>>, Promise<R>> liftA(final F1<List<T>, R> f) {
+    return new F1<List<Promise<T>>, Promise<R>>() {
+      @Override
+      public Promise<R> apply(final List<Promise<T>> promisesT) {
+        return all(promisesT).fmap(f);
+      }
+    };
+  }
+
+  /**
+   * Combines a list of promises into a promise of the list of their values, in the same order.
+   * It succeeds once all the promises succeed, and fails as soon as any of them fails, with the
+   * exception of that promise. The promises that are still pending at that point are ignored.
+   *
+   * <p>The completions are counted down with a single atomic counter, so it takes O(n) time
+   * and one listener per promise.
+   *
+   * <p>all :: [Promise T] -> Promise [T]
+   */
+  public static <T> Promise<List<T>> all(List<Promise<T>> promises) {
+    return collect(promises.toArray(new Promise<?>[promises.size()])).fmap(new IF1<Object[], List<T>>() {
+      @SuppressWarnings("unchecked")
+      @Override
+      public List<T> apply(Object[] values) {
+        return (List<T>)Arrays.asList(values);
+      }
+    });
+  }
+
+  /**
+   * Same as {@link #all(List)}, under the name used in Haskell.
+   *
+   * <p>sequence :: [Promise T] -> Promise [T]
+   */
+  public static <T> Promise<List<T>> sequence(List<Promise<T>> promises) {
+    return all(promises);
+  }
 
-        promiseT2.addListener(new Listener<T2>() {
+  /**
+   * Maps an asynchronous function over a list, with at most {@code maxInFlight} of the
+   * returned promises pending at any time. The next element is started as soon as a pending
+   * promise succeeds. The values are in the same order as the list. It fails as soon as any
+   * promise fails, with the same exception, and no more elements are started after that, or
+   * after the returned promise is cancelled.
+   *
+   * <p>traverse :: (T -> Promise R) -> [T] -> Promise [R]
+   */
+  public static <T, R> Promise<List<R>> traverse(
+      final IF1<T, Promise<R>> f, List<T> list, int maxInFlight) {
+    assert maxInFlight > 0;
+    if (list.isEmpty()) {
+      return Promise.unit(Collections.<R>emptyList());
+    }
+
+    final List<T> elements = list instanceof RandomAccess ? list : new ArrayList<T>(list);
+    final Object[] values = new Object[elements.size()];
+    final AtomicInteger nextIndex = new AtomicInteger();
+    final AtomicInteger remaining = new AtomicInteger(values.length);
+    final Promise<List<R>> promiseR = new Promise<List<R>>();
+
+    final Runnable startNext = new Runnable() {
+      @Override
+      public void run() {
+        if (promiseR.state() != Promise.State.PENDING) {
+          return;
+        }
+        final int index = nextIndex.getAndIncrement();
+        if (index >= values.length) {
+          return;
+        }
+        final Runnable startNext = this;
+        Promise<R> promise;
+        try {
+          promise = f.apply(elements.get(index));
+        } catch (RuntimeException e) {
+          promiseR.tryNotifyFailure(e);
+          return;
+        }
+        promise.addListener(new Listener<R>() {
+          @SuppressWarnings("unchecked")
           @Override
-          public void onSuccess(T2 value) {
-            value2 = value;
-            state2 = Promise.State.SUCCEEDED;
-            synchronized(promiseR) {
-              if (state1 == Promise.State.SUCCEEDED) {
-                promiseR.notifySuccess(f.apply(value1, value2));
-              }
+          public void onSuccess(R value) {
+            values[index] = value;
+            if (remaining.decrementAndGet() == 0) {
+              promiseR.tryNotifySuccess((List<R>)Arrays.asList(values));
+            } else {
+              startNext.run();
             }
           }
 
           @Override
           public void onFailure(Exception exception) {
-            promiseR.notifyFailure(exception);
-            synchronized(promiseR) {
-              if (state1 != Promise.State.FAILED) {
-                promiseR.notifyFailure(exception); // Only notify failure once.
-              }
-            }
+            promiseR.tryNotifyFailure(exception);
           }
         });
+      }
+    };
+    for (int i = 0; i < Math.min(maxInFlight, values.length); i++) {
+      startNext.run();
+    }
+    return promiseR;
+  }
 
-        return promiseR;
+  /**
+   * Curried form of {@link #traverse(IF1, List, int)}.
+   */
+  public static <T, R> F1<List<T>, Promise<List<R>>> traverse(final IF1<T, Promise<R>> f, final int maxInFlight) {
+    return new F1<List<T>, Promise<List<R>>>() {
+      @Override
+      public Promise<List<R>> apply(List<T> list) {
+        return traverse(f, list, maxInFlight);
       }
     };
   }
 
-  public static <T, R> F1<List<Promise<T>>, Promise<R>> liftA(final F1<List<T>, R> f) {
-    return new F1<List<Promise<T>>, Promise<R>>() {
+  /**
+   * Returns a promise of the value of the first promise which succeeds. It fails only if all
+   * the promises fail, with the exception of the last one which fails, or with a
+   * {@link NoSuchElementException} if the list is empty.
+   *
+   * <p>any :: [Promise T] -> Promise T
+   */
+  public static <T> Promise<T> any(List<Promise<T>> promises) {
+    if (promises.isEmpty()) {
+      return Promise.failure(new NoSuchElementException("No promise to wait for"));
+    }
+
+    final Promise<T> promiseR = new Promise<T>();
+    final AtomicInteger remaining = new AtomicInteger(promises.size());
+    Listener<T> listener = new Listener<T>() {
       @Override
-      public Promise<R> apply(final List<Promise<T>> promisesT) {
-        final Promise<R> promiseR = new Promise<R>() {};
-        for (Promise<T> promiseT : promisesT) {
-          promiseT.addListener(new Listener<T>() {
-            @Override
-            public void onSuccess(T value) {
-              notifyIfDone(promisesT, promiseR);
-            }
+      public void onSuccess(T value) {
+        promiseR.tryNotifySuccess(value);
+      }
 
-            @Override
-            public void onFailure(Exception exception) {
-              notifyIfDone(promisesT, promiseR);
-            }
-          });
+      @Override
+      public void onFailure(Exception exception) {
+        if (remaining.decrementAndGet() == 0) {
+          promiseR.tryNotifyFailure(exception);
         }
-        return promiseR;
       }
+    };
+    for (Promise<T> promise : promises) {
+      promise.addListener(listener);
+    }
+    return promiseR;
+  }
 
-      private void notifyIfDone(List<Promise<T>> promisesT, Promise<R> promiseR) {
-        Promise.State state = getState(promisesT);
-        if (state == Promise.State.SUCCEEDED) {
-          R value = f.apply(Lists.map(Promises.<T>getValue(), promisesT));
-          promiseR.notifySuccess(value);
-        } else if (state == Promise.State.FAILED) {
-          promiseR.notifyFailure(new Exception());
-        }
+  /**
+   * Returns a promise which succeeds once all the promises are completed, whether they succeed
+   * or fail. Its value is the list of the promises itself, in the same order, all of which are
+   * completed by then. It never fails.
+   *
+   * <p>allSettled :: [Promise T] -> Promise [Promise T]
+   */
+  public static <T> Promise<List<Promise<T>>> allSettled(final List<Promise<T>> promises) {
+    if (promises.isEmpty()) {
+      return Promise.unit(promises);
+    }
+
+    final Promise<List<Promise<T>>> promiseR = new Promise<List<Promise<T>>>();
+    final AtomicInteger remaining = new AtomicInteger(promises.size());
+    Listener<T> listener = new Listener<T>() {
+      @Override
+      public void onSuccess(T value) {
+        countDown();
       }
 
-      private Promise.State getState(List<Promise<T>> promises) {
-        boolean hasFailure = false;
-        for (Promise<?> promise : promises) {
-          if (promise.state() == Promise.State.PENDING) {
-            return Promise.State.PENDING;
-          }
-          if (promise.state() == Promise.State.FAILED) {
-            hasFailure = true;
-          }
+      @Override
+      public void onFailure(Exception exception) {
+        countDown();
+      }
+
+      private void countDown() {
+        if (remaining.decrementAndGet() == 0) {
+          promiseR.tryNotifySuccess(promises);
         }
-        return hasFailure ? Promise.State.FAILED : Promise.State.SUCCEEDED;
       }
     };
+    for (Promise<T> promise : promises) {
+      promise.addListener(listener);
+    }
+    return promiseR;
   }
 
   /**
@@ -154,31 +360,12 @@ public class Promises {
   public static <T> Promise<T> join(final Promise<Promise<T>> promiseOfPromiseT) {
     assert promiseOfPromiseT != null;
 
-    final Promise<T> promiseT = new Promise<T>();
-
-    promiseOfPromiseT.addListener(new Listener<Promise<T>>() {
+    return promiseOfPromiseT.bind(new IF1<Promise<T>, Promise<T>>() {
       @Override
-      public void onSuccess(Promise<T> p) {
-        p.addListener(new Listener<T>(){
-          @Override
-          public void onSuccess(T value) {
-            promiseT.notifySuccess(value);
-          }
-
-          @Override
-          public void onFailure(Exception exception) {
-            promiseT.notifyFailure(exception);
-          }
-        });
-      }
-
-      @Override
-      public void onFailure(Exception exception) {
-        promiseT.notifyFailure(exception);
+      public Promise<T> apply(Promise<T> promiseT) {
+        return promiseT;
       }
     });
-
-    return promiseT;
   }
 
   /**
@@ -202,6 +389,196 @@ public class Promises {
     return curry((IF2<IF1<T, Promise<R>>, Promise<T>, Promise<R>>)Promises::flatMap).apply(f);
   }
 
+  /**
+   * Returns a promise which succeeds with null after the delay. It runs on the timer shared
+   * by all promises, so it costs no thread. Cancelling the promise disarms the timer.
+   *
+   * @see Promise#withTimeout(long, TimeUnit)
+   */
+  public static Promise<Void> delay(long delay, TimeUnit unit) {
+    final AtomicReference<HashedWheelTimer.Timeout> timeout = new AtomicReference<HashedWheelTimer.Timeout>();
+    final Promise<Void> promise = new Promise<Void>() {
+      @Override
+      protected void onCancel() {
+        timeout.get().cancel();
+      }
+    };
+    timeout.set(HashedWheelTimer.shared().schedule(new Runnable() {
+      @Override
+      public void run() {
+        promise.tryNotifySuccess(null);
+      }
+    }, delay, unit));
+    return promise;
+  }
+
+  /**
+   * Turns a {@link CompletionStage}, such as a {@link java.util.concurrent.CompletableFuture},
+   * into a promise. The promise is completed by a single callback registered on the stage.
+   * Failures which are not an {@link Exception} are wrapped in an {@link ExecutionException}.
+   * Cancelling the promise cancels the stage, if it supports it.
+   *
+   * @see Promise#toCompletableFuture()
+   */
+  public static <T> Promise<T> fromFuture(final CompletionStage<T> stage) {
+    final Promise<T> promiseT = new Promise<T>() {
+      @Override
+      protected void onCancel() {
+        try {
+          stage.toCompletableFuture().cancel(false);
+        } catch (UnsupportedOperationException e) {
+          // The stage can't be cancelled.
+        }
+      }
+    };
+    stage.whenComplete(new BiConsumer<T, Throwable>() {
+      @Override
+      public void accept(T value, Throwable throwable) {
+        if (throwable == null) {
+          promiseT.tryNotifySuccess(value);
+          return;
+        }
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+            ? throwable.getCause()
+            : throwable;
+        promiseT.tryNotifyFailure(cause instanceof Exception ? (Exception)cause : new ExecutionException(cause));
+      }
+    });
+    return promiseT;
+  }
+
+  /**
+   * Memoizes an asynchronous function. Concurrent calls with the same key share the promise of
+   * the first call, so the function runs once per key while that call is in flight. Successful
+   * results stay cached for {@code ttl} after they complete. At most {@code maxSize} keys are
+   * kept, the least recently used key is evicted first. Failed and cancelled calls are never
+   * cached, the next call with the key calls the function again.
+   *
+   * <p>The returned promises are shared, so cancelling one of them cancels it for every caller.
+   */
+  public static <K, V> F1<K, Promise<V>> memoize(
+      final IF1<K, Promise<V>> f, final int maxSize, long ttl, TimeUnit unit) {
+    assert maxSize > 0;
+    final long ttlNanos = unit.toNanos(ttl);
+    final Map<K, MemoEntry<V>> cache = new LinkedHashMap<K, MemoEntry<V>>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, MemoEntry<V>> eldest) {
+        return size() > maxSize;
+      }
+    };
+
+    return new F1<K, Promise<V>>() {
+      @Override
+      public Promise<V> apply(final K key) {
+        final MemoEntry<V> entry;
+        synchronized (cache) {
+          MemoEntry<V> cached = cache.get(key);
+          if (cached != null && System.nanoTime() - cached.expiresAt < 0
+              && cached.promise.state() != Promise.State.CANCELLED) {
+            return cached.promise;
+          }
+          entry = new MemoEntry<V>();
+          cache.put(key, entry);
+        }
+
+        Promise<V> promise;
+        try {
+          promise = f.apply(key);
+        } catch (RuntimeException e) {
+          promise = Promise.failure(e);
+        }
+        promise.addListener(new Listener<V>() {
+          @Override
+          public void onSuccess(V value) {
+            if (entry.promise.tryNotifySuccess(value)) {
+              synchronized (cache) {
+                entry.expiresAt = System.nanoTime() + ttlNanos;
+              }
+            } else {
+              evict(key, entry);
+            }
+          }
+
+          @Override
+          public void onFailure(Exception exception) {
+            evict(key, entry);
+            entry.promise.tryNotifyFailure(exception);
+          }
+        });
+        return entry.promise;
+      }
+
+      private void evict(K key, MemoEntry<V> entry) {
+        synchronized (cache) {
+          if (cache.get(key) == entry) {
+            cache.remove(key);
+          }
+        }
+      }
+    };
+  }
+
+  /**
+   * Coalesces calls of a multi-get function, like a DataLoader. The returned function collects
+   * the keys it is called with and issues a single batch call for them, either once
+   * {@code maxBatch} keys have been collected, or {@code maxDelay} after the first key of the
+   * batch, whichever comes first. The values are fanned back out to the promise of each key.
+   * A key which is called more than once within a batch is only requested once.
+   *
+   * <p>A key missing from the result map fails with {@link NoSuchElementException}, and a failed
+   * batch call fails the promises of all its keys.
+   */
+  public static <K, V> F1<K, Promise<V>> batched(
+      final IF1<List<K>, Promise<Map<K, V>>> f, final int maxBatch, final long maxDelay, final TimeUnit unit) {
+    assert maxBatch > 0;
+    return new F1<K, Promise<V>>() {
+      private Batch<K, V> current;
+
+      @Override
+      public Promise<V> apply(K key) {
+        Batch<K, V> full = null;
+        Promise<V> promise;
+        synchronized (this) {
+          if (current == null) {
+            final Batch<K, V> batch = current = new Batch<K, V>();
+            batch.timeout = HashedWheelTimer.shared().schedule(new Runnable() {
+              @Override
+              public void run() {
+                flush(batch);
+              }
+            }, maxDelay, unit);
+          }
+          promise = current.promises.get(key);
+          if (promise == null) {
+            promise = new Promise<V>();
+            current.promises.put(key, promise);
+          }
+          if (current.promises.size() >= maxBatch) {
+            full = current;
+            current = null;
+            full.timeout.cancel();
+          }
+        }
+        if (full != null) {
+          full.dispatch(f);
+        }
+        return promise;
+      }
+
+      private void flush(Batch<K, V> batch) {
+        synchronized (this) {
+          if (current != batch) {
+            return;
+          }
+          current = null;
+        }
+        batch.dispatch(f);
+      }
+    };
+  }
+
   /**
    * Gets value of the promise.
    */
@@ -215,4 +592,103 @@ public class Promises {
   public static <T> IF1<Promise<T>, T> getValue() {
     return Promise<T>::getValue;
   }
+
+  /**
+   * Collects the values of promises into an array, in the same order. The returned promise
+   * succeeds once all the promises succeed, and fails as soon as any of them fails. The state
+   * of the join is private to each call: the values array and a single atomic counter of the
+   * promises which are still pending.
+   */
+  private static Promise<Object[]> collect(Promise<?>... promises) {
+    final Object[] values = new Object[promises.length];
+    if (promises.length == 0) {
+      return Promise.unit(values);
+    }
+
+    final Promise<Object[]> promiseR = new Promise<Object[]>();
+    final AtomicInteger remaining = new AtomicInteger(promises.length);
+    for (int i = 0; i < promises.length; i++) {
+      final int index = i;
+      @SuppressWarnings("unchecked")
+      Promise<Object> promise = (Promise<Object>)promises[i];
+      promise.addListener(new Listener<Object>() {
+        @Override
+        public void onSuccess(Object value) {
+          values[index] = value;
+          // The decrement publishes the value to the thread which counts down to 0.
+          if (remaining.decrementAndGet() == 0) {
+            promiseR.tryNotifySuccess(values);
+          }
+        }
+
+        @Override
+        public void onFailure(Exception exception) {
+          promiseR.tryNotifyFailure(exception);
+        }
+      });
+    }
+    return promiseR;
+  }
+
+  /**
+   * Cached call of {@link #memoize}. While the call is in flight it never expires. Guarded by
+   * the lock of the cache.
+   */
+  private static final class MemoEntry<V> {
+    final Promise<V> promise = new Promise<V>();
+    long expiresAt = System.nanoTime() + Long.MAX_VALUE;
+  }
+
+  /**
+   * Keys collected by {@link #batched} for one batch call, with the promise of each key.
+   */
+  private static final class Batch<K, V> {
+    final Map<K, Promise<V>> promises = new LinkedHashMap<K, Promise<V>>();
+    HashedWheelTimer.Timeout timeout;
+
+    void dispatch(IF1<List<K>, Promise<Map<K, V>>> f) {
+      Promise<Map<K, V>> values;
+      try {
+        values = f.apply(new ArrayList<K>(promises.keySet()));
+      } catch (RuntimeException e) {
+        values = Promise.failure(e);
+      }
+      values.addListener(new Listener<Map<K, V>>() {
+        @Override
+        public void onSuccess(Map<K, V> values) {
+          for (Map.Entry<K, Promise<V>> entry : promises.entrySet()) {
+            if (values.containsKey(entry.getKey())) {
+              entry.getValue().tryNotifySuccess(values.get(entry.getKey()));
+            } else {
+              entry.getValue().tryNotifyFailure(new NoSuchElementException("No value for key: " + entry.getKey()));
+            }
+          }
+        }
+
+        @Override
+        public void onFailure(Exception exception) {
+          for (Promise<V> promise : promises.values()) {
+            promise.tryNotifyFailure(exception);
+          }
+        }
+      });
+    }
+  }
+
+  /**
+   * Lazily looks up the virtual thread executor with reflection, so that Fava still runs on
+   * JVMs without virtual threads.
+   */
+  private static final class VirtualThreads {
+    static final Maybe<Executor> EXECUTOR = create();
+
+    private static Maybe<Executor> create() {
+      try {
+        Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        return Maybe.just((Executor)factory.invoke(null));
+      } catch (ReflectiveOperationException e) {
+        return Maybe.nothing();
+      }
+    }
+  }
 }
@@ -0,0 +1,146 @@
+package fava;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import fava.data.Maybe;
+import fava.data.Pair;
+import fava.promise.AsyncSeq;
+import fava.promise.AsyncSeq.Subscriber;
+import fava.promise.AsyncSeq.Subscription;
+import fava.promise.Promise;
+import fava.promise.Promises;
+
+public class AsyncSeqTest {
+  @Test
+  public void testOperators() {
+    AsyncSeq<Integer> numbers = AsyncSeq.of(1, 2, 3, 4, 5, 6, 7);
+    List<List<Integer>> batches = numbers
+        .filter((Integer n) -> n != 4)
+        .fmap((Integer n) -> n * 10)
+        .batch(2)
+        .toList()
+        .await();
+    assertEquals(asList(asList(10, 20), asList(30, 50), asList(60, 70)), batches);
+
+    List<Integer> bound = AsyncSeq.of(1, 2, 3)
+        .bind((Integer n) -> n == 2 ? AsyncSeq.<Integer>empty() : AsyncSeq.of(n, -n))
+        .toList()
+        .await();
+    assertEquals(asList(1, -1, 3, -3), bound);
+  }
+
+  @Test
+  public void testPages() {
+    // Pages of 3 records, fetched asynchronously one page at a time.
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    final AtomicInteger fetched = new AtomicInteger();
+    AsyncSeq<List<Integer>> pages = AsyncSeq.unfold(0, (Integer page) -> {
+      fetched.incrementAndGet();
+      Maybe<Pair<List<Integer>, Integer>> step = page < 4
+          ? Maybe.just(Pair.of(asList(page * 3, page * 3 + 1, page * 3 + 2), page + 1))
+          : Maybe.<Pair<List<Integer>, Integer>>nothing();
+      return Promises.fmapAsync((Integer n) -> step, executor).apply(Promise.unit(page));
+    });
+    AsyncSeq<Integer> records = pages.bind((List<Integer> page) -> AsyncSeq.from(page));
+
+    assertEquals(asList(0, 1, 2, 3), records.take(4).toList().await());
+    assertEquals(2, fetched.get());
+    executor.shutdown();
+  }
+
+  @Test
+  public void testConstantStack() {
+    final int n = 1000000;
+    AsyncSeq<Integer> numbers = AsyncSeq.unfold(0, (Integer i) ->
+        Promise.unit(i < n ? Maybe.just(Pair.of(i, i + 1)) : Maybe.<Pair<Integer, Integer>>nothing()));
+    long sum = numbers
+        .filter((Integer i) -> i % 1000 == 0)
+        .foldl((Integer i, Long acc) -> acc + i, 0L)
+        .await();
+    assertEquals(499500000L, sum);
+  }
+
+  @Test
+  public void testSubscribeBackpressure() {
+    final AtomicInteger pulled = new AtomicInteger();
+    AsyncSeq<Integer> numbers = AsyncSeq.of(1, 2, 3, 4, 5).fmap((Integer i) -> {
+      pulled.incrementAndGet();
+      return i;
+    });
+    final List<Integer> received = new ArrayList<Integer>();
+    final Subscription[] subscription = new Subscription[1];
+    final boolean[] completed = new boolean[1];
+    numbers.subscribe(new Subscriber<Integer>() {
+      @Override
+      public void onSubscribe(Subscription s) {
+        subscription[0] = s;
+      }
+
+      @Override
+      public void onNext(Integer element) {
+        received.add(element);
+      }
+
+      @Override
+      public void onError(Exception exception) {
+      }
+
+      @Override
+      public void onComplete() {
+        completed[0] = true;
+      }
+    });
+
+    assertEquals(0, pulled.get());
+    subscription[0].request(2);
+    assertEquals(asList(1, 2), received);
+    assertEquals(2, pulled.get());
+    subscription[0].request(Long.MAX_VALUE);
+    assertEquals(asList(1, 2, 3, 4, 5), received);
+    assertTrue(completed[0]);
+  }
+
+  @Test
+  public void testFromPublisher() throws Exception {
+    final AtomicInteger requested = new AtomicInteger();
+    AsyncSeq<Integer> source = AsyncSeq.from(new Iterable<Integer>() {
+      @Override
+      public Iterator<Integer> iterator() {
+        return new Iterator<Integer>() {
+          private int i = 0;
+
+          @Override
+          public boolean hasNext() {
+            return i < 100;
+          }
+
+          @Override
+          public Integer next() {
+            requested.incrementAndGet();
+            return i++;
+          }
+        };
+      }
+    });
+
+    AsyncSeq<Integer> seq = AsyncSeq.<Integer>fromPublisher(source::subscribe, 8);
+    assertEquals(0, (int)seq.next().await().getValue());
+    // Only the buffer has been requested from the publisher, not the whole source.
+    assertEquals(8, requested.get());
+
+    long sum = seq.foldl((Integer i, Long acc) -> acc + i, 0L).await(1, TimeUnit.SECONDS);
+    assertEquals(4950L, sum);
+  }
+}
@@ -24,4 +24,19 @@ public class ComposingTest {
     F1<String, String> f = _(split(" "), Lists.<String>reverse(), map(toUpperCase()), join("_"));
     assertEquals("JAVA_IN_PROGRAMMING_LOVE_I", f.apply("I love programming in Java"));
   }
+
+  @Test
+  public void testComposeMany() {
+    F1<Integer, Integer> inc = _((Integer n) -> n + 1, (Integer n) -> n);
+    F1<Integer, Integer> f = _(inc, inc, inc, inc, inc, inc, inc, inc);
+    assertEquals(8, (int)f.apply(0));
+    // Composing composed functions flattens them.
+    assertEquals(16, (int)_(f, f).apply(0));
+
+    F1<Integer, Integer> deep = inc;
+    for (int i = 0; i < 20000; i++) {
+      deep = _(deep, inc);
+    }
+    assertEquals(20001, (int)deep.apply(0));
+  }
 }
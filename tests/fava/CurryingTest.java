@@ -1,12 +1,18 @@
 package fava;
 
+import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 
 import fava.Currying.F1;
 import fava.Currying.F2;
+import fava.Currying.F3;
+import fava.Currying.IntF1;
+import fava.Currying.IntF2;
+import fava.data.Lists;
 import fava.data.Strings;
 
 public class CurryingTest {
@@ -18,4 +24,33 @@ public class CurryingTest {
     assertTrue(times.apply(3) instanceof F1<?, ?>);
     assertEquals("abcabcabc", times.apply(3, "abc"));
   }
+
+  @Test
+  public void testPartialApplication() {
+    F3<Integer, Integer, Integer, Integer> sum = Currying.<Integer, Integer, Integer, Integer>curry(
+        (Integer a, Integer b, Integer c) -> a + b + c);
+    F2<Integer, Integer, Integer> sum1 = sum.apply(1);
+    assertEquals(6, (int)sum1.apply(2, 3));
+    assertEquals(6, (int)sum1.apply(2).apply(3));
+    assertEquals(6, (int)sum.apply(1).apply(2).apply(3));
+  }
+
+  @Test
+  public void testSharedInstances() {
+    assertSame(Lists.<String, Integer>map(), Lists.<Integer, String>map());
+    assertSame(Lists.<String>sort(), Lists.<Integer>sort());
+    assertSame(Lists.<String>append(), Lists.<Integer>append());
+    assertSame(Strings.split(), Strings.split());
+    assertEquals(asList("a", "b"), Strings.split(",").apply("a,b"));
+  }
+
+  @Test
+  public void testPrimitiveCurrying() {
+    IntF2 add = Currying.curryInt((int a, int b) -> a + b);
+    IntF1 inc = add.apply(1);
+    assertEquals(3, inc.apply(2));
+    assertEquals(5, add.apply(2, 3));
+    assertEquals(-1L, Currying.curryLong((long n) -> -n).apply(1L));
+    assertEquals(0.5, Currying.curryDouble((double a, double b) -> a / b).apply(1.0).apply(2.0), 0.0);
+  }
 }
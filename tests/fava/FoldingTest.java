@@ -3,11 +3,15 @@ package fava;
 import static fava.Folding.foldr;
 import static org.junit.Assert.assertEquals;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
 
 import org.junit.Test;
 
 import fava.Currying.F2;
+import fava.data.Monoid;
 
 public class FoldingTest {
   @Test
@@ -33,4 +37,53 @@ public class FoldingTest {
 
     assertEquals("(1+(2+(3+0)))", foldr(addParenthese, "0", Arrays.asList(1, 2, 3)));
   }
+
+  @Test
+  public void testFold_largeList() {
+    F2<Integer, Integer, Integer> count = new F2<Integer, Integer, Integer>() {
+      @Override
+      public Integer apply(Integer element, Integer acc) {
+        return acc + 1;
+      }
+    };
+
+    List<Integer> list = new LinkedList<Integer>();
+    for (int i = 0; i < 1000000; i++) {
+      list.add(i);
+    }
+
+    assertEquals(1000000, (int)Folding.foldl(count, 0, list));
+    assertEquals(1000000, (int)foldr(count, 0, list));
+  }
+
+  @Test
+  public void testFold_lambda() {
+    List<Integer> list = Arrays.asList(1, 2, 3);
+    assertEquals("(((0+1)+2)+3)", Folding.<Integer, String>foldl((e, acc) -> "(" + acc + "+" + e + ")", "0", list));
+    assertEquals("(1+(2+(3+0)))", Folding.<Integer, String>foldr((e, acc) -> "(" + e + "+" + acc + ")", "0", list));
+  }
+
+  @Test
+  public void testParallelFold() {
+    List<Long> numbers = new ArrayList<Long>();
+    for (long i = 1; i <= 1000000; i++) {
+      numbers.add(i);
+    }
+    assertEquals(500000500000L, (long)Folding.parallelFold((Long a, Long b) -> a + b, 0L, numbers));
+
+    List<String> letters = new LinkedList<String>();
+    for (int i = 0; i < 10000; i++) {
+      letters.add(String.valueOf((char)('a' + i % 26)));
+    }
+    Monoid<String> concat = Monoid.of("", (String a, String b) -> a + b);
+    assertEquals(Folding.<String, String>foldl((e, acc) -> acc + e, "", letters), Folding.parallelFold(concat, letters, 100));
+  }
+
+  @Test
+  public void testPrimitiveFolds() {
+    assertEquals(10, Folding.foldlInt((int n, int acc) -> n + acc, 0, new int[] {1, 2, 3, 4}));
+    assertEquals(24L, Folding.foldlLong((long n, long acc) -> n * acc, 1L, new long[] {1, 2, 3, 4}));
+    assertEquals(2.5, Folding.foldlDouble((double n, double acc) -> Math.max(n, acc), 0.0, new double[] {1, 2.5, -3}), 0.0);
+    assertEquals(7, Folding.foldlInt((int n, int acc) -> n + acc, 7, new int[0]));
+  }
 }
@@ -1,14 +1,21 @@
 package fava;
 
 import static fava.data.Lists.map;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import java.lang.management.ManagementFactory;
+import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 import org.junit.Test;
 
+import com.sun.management.ThreadMXBean;
+
 import fava.Currying.F1;
 import fava.data.Lists;
 import fava.data.Strings;
@@ -41,4 +48,91 @@ public class ListsTest {
     assertEquals(4, (int)result.get(1));
     assertEquals(9, (int)result.get(2));
   }
+
+  @Test
+  public void testReverse() {
+    assertEquals(Arrays.asList(3, 2, 1), Lists.reverse(Arrays.asList(1, 2, 3)));
+    assertEquals(Arrays.asList("c", "b", "a"), Lists.<String>reverse().apply(Arrays.asList("a", "b", "c")));
+  }
+
+  @Test
+  public void testFlatMap() {
+    List<Integer> result = Lists.flatMap((Integer n) -> Collections.nCopies(n, n), Arrays.asList(1, 2, 3));
+    assertEquals(Arrays.asList(1, 2, 2, 3, 3, 3), result);
+  }
+
+  /**
+   * Regression test for {@code map}: it must allocate a constant number of bytes per
+   * element, by filling a single pre-sized buffer. Copying the result for every element
+   * allocates in proportion to the square of the length instead, about 200KB per element
+   * at 10^5. Allocations are counted rather than timed, so GC and JIT don't decide the
+   * outcome.
+   */
+  @Test
+  public void testMap_linearAllocation() {
+    ThreadMXBean threads = (ThreadMXBean)ManagementFactory.getThreadMXBean();
+    if (!threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) {
+      return;
+    }
+    bytesPerElement(threads, 1000);
+    for (int size : new int[] {100000, 1000000}) {
+      double bytes = bytesPerElement(threads, size);
+      assertTrue("map over " + size + " elements allocated " + bytes + " bytes/element", bytes <= 64);
+    }
+  }
+
+  private static double bytesPerElement(ThreadMXBean threads, final int size) {
+    List<Integer> list = new AbstractList<Integer>() {
+      @Override
+      public Integer get(int index) {
+        return index;
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+
+    long threadId = Thread.currentThread().getId();
+    long before = threads.getThreadAllocatedBytes(threadId);
+    List<Boolean> result = Lists.map((Integer n) -> n % 2 == 0, list);
+    long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+    assertEquals(size, result.size());
+    assertEquals(true, result.get(size - 2));
+    assertEquals(false, result.get(size - 1));
+    return (double)allocated / size;
+  }
+
+  @Test
+  public void testUnique() {
+    assertEquals(Arrays.asList(3, 1, 2), Lists.<Integer>unique().apply(Arrays.asList(3, 1, 3, 2, 1, 2)));
+    assertEquals(Arrays.asList("a", null, "b"), Lists.unique(Arrays.asList("a", null, "a", "b", null)));
+    assertArrayEquals(new int[] {0, -1, 5}, Lists.unique(new int[] {0, -1, 0, 5, -1, 5}));
+    assertArrayEquals(new long[] {Long.MAX_VALUE, 0, 7}, Lists.unique(new long[] {Long.MAX_VALUE, 0, 7, 0, 7}));
+
+    int[] ids = new int[200000];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = i % 100000;
+    }
+    assertEquals(100000, Lists.unique(ids).length);
+  }
+
+  @Test
+  public void testUniqueBy() {
+    F1<List<String>, List<String>> uniqueIgnoreCase = Lists.uniqueBy((String str) -> str.toLowerCase());
+    assertEquals(Arrays.asList("Java", "lisp"), uniqueIgnoreCase.apply(Arrays.asList("Java", "lisp", "JAVA", "Lisp")));
+  }
+
+  @Test
+  public void testParallelMap() {
+    List<Integer> numbers = new ArrayList<Integer>();
+    for (int i = 0; i < 100000; i++) {
+      numbers.add(i);
+    }
+    List<Integer> squares = Lists.parallelMap((Integer n) -> n * n, numbers, 1000);
+    assertEquals(Lists.map((Integer n) -> n * n, numbers), squares);
+    assertEquals(Arrays.asList("1", "2"), Lists.parallelMap((Integer n) -> String.valueOf(n)).apply(Arrays.asList(1, 2)));
+  }
 }
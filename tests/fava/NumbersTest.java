@@ -0,0 +1,41 @@
+package fava;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import fava.data.Numbers;
+
+public class NumbersTest {
+  @Test
+  public void testBulk() {
+    int[] a = {1, 2, 3, 4, 5};
+    int[] b = {10, 0, 30, -2, 5};
+    assertArrayEquals(new int[] {11, 2, 33, 2, 10}, Numbers.add(a, b));
+    assertArrayEquals(new int[] {3, 6, 9, 12, 15}, Numbers.scale(a, 3));
+    assertEquals(15L, Numbers.sum(a));
+    assertEquals(10L + 90 - 8 + 25, Numbers.dot(a, b));
+
+    int[] quotients = new int[a.length];
+    boolean[] valid = Numbers.divide(b, a, quotients);
+    assertArrayEquals(new int[] {10, 0, 10, 0, 1}, quotients);
+    assertTrue(valid[0] && valid[1] && valid[2] && valid[3] && valid[4]);
+    valid = Numbers.divide(a, b, quotients);
+    assertArrayEquals(new int[] {0, 0, 0, -2, 1}, quotients);
+    assertTrue(valid[0] && !valid[1] && valid[2] && valid[3] && valid[4]);
+  }
+
+  @Test
+  public void testSumOverflow() {
+    int[] large = new int[1001];
+    Arrays.fill(large, Integer.MAX_VALUE);
+    int[] twos = new int[1001];
+    Arrays.fill(twos, 2);
+    assertEquals(1001L * Integer.MAX_VALUE, Numbers.sum(large));
+    assertEquals(1001L * Integer.MAX_VALUE * 2, Numbers.dot(large, twos));
+  }
+}
@@ -0,0 +1,64 @@
+package fava;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import fava.data.Lists;
+import fava.data.PVector;
+
+public class PVectorTest {
+  @Test
+  public void testAppend() {
+    PVector<Integer> vector = PVector.empty();
+    for (int i = 0; i < 100000; i++) {
+      PVector<Integer> next = vector.append(i);
+      assertEquals(i, vector.size());
+      assertEquals(i + 1, next.size());
+      vector = next;
+    }
+    for (int i = 0; i < 100000; i++) {
+      assertEquals(i, (int)vector.get(i));
+    }
+    int expected = 0;
+    for (int element : vector) {
+      assertEquals(expected++, element);
+    }
+    assertEquals(100000, expected);
+  }
+
+  @Test
+  public void testUpdate() {
+    PVector<Integer> vector = PVector.empty();
+    for (int i = 0; i < 2000; i++) {
+      vector = vector.append(i);
+    }
+    PVector<Integer> updated = vector;
+    for (int i = 0; i < 2000; i += 7) {
+      updated = updated.update(i, -i);
+    }
+    for (int i = 0; i < 2000; i++) {
+      assertEquals(i, (int)vector.get(i));
+      assertEquals(i % 7 == 0 ? -i : i, (int)updated.get(i));
+    }
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testImmutable() {
+    PVector.of(1, 2, 3).add(4);
+  }
+
+  @Test
+  public void testLists() {
+    PVector<Integer> vector = PVector.of(1, 2, 3);
+    assertEquals(Arrays.asList(1, 2, 3, 4), Lists.append(4, vector));
+    assertEquals(Arrays.asList(1, 2, 3), vector);
+    assertEquals(Arrays.asList(3, 2, 1), Lists.reverse(vector));
+    PVector<String> mapped = Lists.map((Integer n) -> "#" + n, vector);
+    assertEquals(Arrays.asList("#1", "#2", "#3"), mapped);
+    PVector<PVector<Integer>> vectorOfVectors = PVector.of(vector, vector);
+    assertEquals(Arrays.asList(1, 2, 3, 1, 2, 3), Lists.flatten(vectorOfVectors));
+  }
+}
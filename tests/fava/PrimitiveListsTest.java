@@ -0,0 +1,52 @@
+package fava;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import fava.data.DoubleList;
+import fava.data.IntList;
+import fava.data.LongList;
+
+public class PrimitiveListsTest {
+  @Test
+  public void testIntList() {
+    IntList list = new IntList();
+    for (int i = 0; i < 100000; i++) {
+      list.add(i % 10);
+    }
+    assertEquals(100000, list.size());
+    assertEquals(450000, list.foldl((int n, int acc) -> n + acc, 0));
+    assertEquals(IntList.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), list.unique());
+
+    IntList numbers = IntList.of(3, 1, 2);
+    assertEquals(IntList.of(1, 2, 3), numbers.sort());
+    assertEquals(IntList.of(6, 2, 4), numbers.map((int n) -> n * 2));
+    assertEquals(IntList.of(3, -3, 1, -1, 2, -2), numbers.flatMap((int n) -> IntList.of(n, -n)));
+    assertTrue(numbers.exists((int n) -> n > 2));
+    assertFalse(numbers.exists((int n) -> n > 3));
+    assertArrayEquals(new int[] {3, 1, 2}, numbers.toArray());
+    assertEquals("[3, 1, 2]", numbers.toString());
+  }
+
+  @Test
+  public void testLongList() {
+    LongList list = LongList.of(5L, 1L << 40, 5L, -1L);
+    assertEquals(LongList.of(5L, 1L << 40, -1L), list.unique());
+    assertEquals(LongList.of(-1L, 5L, 5L, 1L << 40), list.sort());
+    assertEquals((1L << 40) + 9, list.foldl((long n, long acc) -> n + acc, 0L));
+    assertEquals(LongList.of(6L, (1L << 40) + 1, 6L, 0L), list.map((long n) -> n + 1));
+  }
+
+  @Test
+  public void testDoubleList() {
+    DoubleList list = DoubleList.of(1.5, Double.NaN, 1.5, -0.0, 0.0, Double.NaN);
+    assertEquals(DoubleList.of(1.5, Double.NaN, -0.0, 0.0), list.unique());
+    assertEquals(3.0, DoubleList.of(1.0, 2.0).foldl((double n, double acc) -> n + acc, 0.0), 0.0);
+    assertTrue(list.exists((double n) -> Double.isNaN(n)));
+    assertEquals(DoubleList.of(0.5, 1.0), DoubleList.of(1.0, 2.0).map((double n) -> n / 2));
+  }
+}
@@ -13,9 +13,24 @@ import static fava.promise.Promises.fmap;
 import static fava.promise.Promises.liftA;
 import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
@@ -25,6 +40,7 @@ import fava.Functions.IF1;
 import fava.data.Lists;
 import fava.data.Strings;
 import fava.promise.Promise;
+import fava.promise.PromiseTimeoutException;
 import fava.promise.Promises;
 
 public class PromiseTest {
@@ -180,10 +196,509 @@ public class PromiseTest {
         liftedAsyncGet2.apply(asyncGet(URL6)).await());
   }
 
+  @Test
+  public void testPromise_awaitTimeout() throws Exception {
+    assertEquals(PAGE1, asyncGet(URL1).await(10, TimeUnit.SECONDS));
+    try {
+      new Promise<String>().await(10, TimeUnit.MILLISECONDS);
+      fail();
+    } catch (TimeoutException e) {
+    }
+  }
+
+  @Test
+  public void testPromise_awaitTimeoutUnlinksWaiter() throws Exception {
+    SettablePromise<String> promise = new SettablePromise<String>();
+    final String[] notified = new String[1];
+    promise.fmap((String value) -> notified[0] = value);
+    for (int i = 0; i < 200000; i++) {
+      try {
+        promise.await(0, TimeUnit.NANOSECONDS);
+        fail();
+      } catch (TimeoutException e) {
+      }
+    }
+    // Only the fmap listener is left.
+    assertEquals(1, countListeners(promise));
+    promise.set(PAGE1);
+    assertEquals(PAGE1, notified[0]);
+  }
+
+  @Test
+  public void testPromise_awaitInterruptibly() throws Exception {
+    Thread.currentThread().interrupt();
+    try {
+      new Promise<String>().awaitInterruptibly();
+      fail();
+    } catch (InterruptedException e) {
+    }
+  }
+
+  @Test
+  public void testPromise_concurrentListeners() throws Exception {
+    for (int round = 0; round < 100; round++) {
+      final SettablePromise<Integer> promise = new SettablePromise<Integer>();
+      final AtomicInteger notified = new AtomicInteger();
+      final CountDownLatch start = new CountDownLatch(1);
+      List<Thread> threads = new ArrayList<Thread>();
+      for (int i = 0; i < 4; i++) {
+        Thread thread = new Thread(() -> {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+          }
+          for (int j = 0; j < 100; j++) {
+            promise.fmap((Integer value) -> notified.incrementAndGet());
+          }
+        });
+        thread.start();
+        threads.add(thread);
+      }
+      start.countDown();
+      promise.set(round);
+      for (Thread thread : threads) {
+        thread.join();
+      }
+      assertEquals(400, notified.get());
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testPromise_completeTwice() {
+    SettablePromise<String> promise = new SettablePromise<String>();
+    promise.set("foo");
+    promise.set("bar");
+  }
+
+  @Test
+  public void testPromise_fmapAsync() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "mapper"));
+    try {
+      Promise<String> threadName = asyncGet(URL1).fmapAsync((String page) -> Thread.currentThread().getName(), executor);
+      assertEquals("mapper", threadName.await());
+
+      Promise<String> page5 = asyncGet(URL4).bindAsync(PromiseTest::asyncGet, executor);
+      assertEquals(PAGE5, page5.await());
+      assertEquals(executor, page5.getDefaultExecutor());
+
+      Promise<String> failed = unit("foo").fmapAsync((String str) -> { throw new IllegalArgumentException(str); }, executor);
+      failed.await();
+      assertEquals(Promise.State.FAILED, failed.state());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Tests that long bind chains don't overflow the stack, both when the chain is built on a
+   * pending promise and when it is built recursively on completed promises.
+   */
+  @Test
+  public void testPromise_deepBindChain() {
+    SettablePromise<Integer> root = new SettablePromise<Integer>();
+    Promise<Integer> chain = root;
+    for (int i = 0; i < 100000; i++) {
+      chain = chain.bind((Integer n) -> unit(n + 1));
+    }
+    root.set(0);
+    assertEquals(100000, (int)chain.await());
+
+    assertEquals(100000, (int)countUp(0, 100000).await());
+  }
+
+  @Test
+  public void testPromise_cancelDeepChain() {
+    SettablePromise<Integer> root = new SettablePromise<Integer>();
+    Promise<Integer> chain = root;
+    for (int i = 0; i < 100000; i++) {
+      chain = i % 2 == 0 ? chain.bind((Integer n) -> unit(n + 1)) : chain.fmap((Integer n) -> n + 1);
+    }
+    assertTrue(chain.cancel());
+    assertEquals(Promise.State.CANCELLED, root.state());
+  }
+
+  @Test
+  public void testPromise_awaitInsideListener() {
+    Promise<String> result = unit("foo").fmap((String str) -> unit(str).fmap(toUpperCase()).await());
+    assertEquals("FOO", result.await());
+  }
+
+  @Test
+  public void testPromise_awaitWakesUpInsideCallback() throws Exception {
+    final SettablePromise<String> target = new SettablePromise<String>();
+    final CountDownLatch awaited = new CountDownLatch(1);
+    Thread waiter = new Thread(() -> {
+      target.await();
+      awaited.countDown();
+    });
+    waiter.start();
+    while (waiter.getState() != Thread.State.WAITING) {
+      Thread.yield();
+    }
+
+    // Complete the target from inside a callback, and wait for the waiter before returning.
+    final boolean[] woken = new boolean[1];
+    unit("go").fmap((String go) -> {
+      target.set(PAGE1);
+      try {
+        woken[0] = awaited.await(2, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+      }
+      return go;
+    });
+    assertTrue(woken[0]);
+    waiter.join();
+  }
+
+  @Test
+  public void testPromise_awaitInsideListenerIsolatesFailures() {
+    final SettablePromise<String> inner = new SettablePromise<String>();
+    final SettablePromise<String> outer = new SettablePromise<String>();
+    final String[] awaited = new String[1];
+    outer.addListener(new Promise.Listener<String>() {
+      @Override
+      public void onSuccess(String value) {
+        awaited[0] = inner.await();
+      }
+
+      @Override
+      public void onFailure(Exception exception) {
+      }
+    });
+    // Queued behind the listener above: one throws, the next completes the awaited promise.
+    outer.fmap((String value) -> {
+      throw new IllegalStateException("unrelated");
+    });
+    outer.fmap((String value) -> {
+      inner.set(value);
+      return value;
+    });
+    try {
+      unit("go").fmap((String go) -> {
+        outer.set(go);
+        return go;
+      });
+    } catch (IllegalStateException e) {
+      // Rethrown by the outermost dispatch, not by the await.
+    }
+    assertEquals("go", awaited[0]);
+  }
+
+  @Test
+  public void testPromise_throwingListenerDoesNotStrandOthers() throws Exception {
+    final SettablePromise<String> promise = new SettablePromise<String>();
+    promise.fmap((String value) -> {
+      throw new IllegalStateException("listener");
+    });
+    Promise<String> after = promise.fmap(toUpperCase());
+    Thread waiter = new Thread(() -> promise.await());
+    waiter.start();
+    while (waiter.getState() != Thread.State.WAITING) {
+      Thread.yield();
+    }
+
+    try {
+      promise.set("x");
+      fail();
+    } catch (IllegalStateException e) {
+      // Rethrown once all the listeners have run.
+    }
+    waiter.join(2000);
+    assertFalse(waiter.isAlive());
+    assertEquals(Promise.State.SUCCEEDED, after.state());
+    assertEquals("X", after.await());
+  }
+
+  @Test
+  public void testPromise_completableFuture() throws Exception {
+    CompletableFuture<String> future = new CompletableFuture<String>();
+    Promise<String> promise = Promises.fromFuture(future.thenApply(String::toUpperCase));
+    assertEquals(Promise.State.PENDING, promise.state());
+    future.complete("foo");
+    assertEquals("FOO", promise.await());
+
+    CompletableFuture<String> failed = new CompletableFuture<String>();
+    failed.completeExceptionally(new IllegalStateException("xxx"));
+    Promise<String> failedPromise = Promises.fromFuture(failed.thenApply(String::toUpperCase));
+    assertEquals(Promise.State.FAILED, failedPromise.state());
+    assertEquals(IllegalStateException.class, failedPromise.getException().getClass());
+
+    assertEquals(PAGE1, asyncGet(URL1).toCompletableFuture().get());
+    try {
+      Promise.<String>failure(new IllegalStateException("xxx")).toCompletableFuture().get();
+      fail();
+    } catch (ExecutionException e) {
+      assertEquals(IllegalStateException.class, e.getCause().getClass());
+    }
+  }
+
+  @Test
+  public void testPromises_all() {
+    List<Promise<String>> pages = asList(asyncGet(URL3), asyncGet(URL1), unit(PAGE2));
+    assertEquals(asList(PAGE3, PAGE1, PAGE2), Promises.all(pages).await());
+
+    Exception notFound = new Exception("404");
+    Promise<List<String>> failed = Promises.all(asList(new Promise<String>(), Promise.<String>failure(notFound)));
+    assertEquals(Promise.State.FAILED, failed.state());
+    assertEquals(notFound, failed.getException());
+
+    assertEquals(asList(), Promises.all(new ArrayList<Promise<String>>()).await());
+  }
+
+  @Test
+  public void testPromises_any() {
+    Exception notFound = new Exception("404");
+    assertEquals(PAGE1, Promises.any(asList(Promise.<String>failure(notFound), asyncGet(URL1))).await());
+
+    Promise<String> failed = Promises.any(asList(Promise.<String>failure(new Exception()), Promise.<String>failure(notFound)));
+    assertEquals(notFound, failed.getException());
+  }
+
+  @Test
+  public void testPromises_allSettled() {
+    Promise<String> failure = failure(new Exception("404"));
+    List<Promise<String>> settled = Promises.allSettled(asList(asyncGet(URL1), failure)).await();
+    assertEquals(PAGE1, settled.get(0).getValue());
+    assertEquals(Promise.State.FAILED, settled.get(1).state());
+  }
+
+  @Test
+  public void testPromise_liftAShared() throws Exception {
+    final F2<Promise<String>, Promise<String>, Promise<String>> concatPromise = liftA(concat());
+    List<Thread> threads = new ArrayList<Thread>();
+    final AtomicInteger mismatches = new AtomicInteger();
+    for (int i = 0; i < 8; i++) {
+      final String prefix = String.valueOf(i);
+      Thread thread = new Thread(() -> {
+        for (int j = 0; j < 1000; j++) {
+          SettablePromise<String> second = new SettablePromise<String>();
+          Promise<String> result = concatPromise.apply(unit(prefix), second);
+          second.set("-" + j);
+          if (!(prefix + "-" + j).equals(result.await())) {
+            mismatches.incrementAndGet();
+          }
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(0, mismatches.get());
+
+    Exception notFound = new Exception("404");
+    Promise<String> failed = concatPromise.apply(Promise.<String>failure(notFound), Promise.<String>failure(new Exception()));
+    assertEquals(notFound, failed.getException());
+  }
+
+  @Test
+  public void testPromises_liftA3_liftA4() {
+    Promise<String> page = Promises.liftA3((String a, String b, String c) -> a + b + c)
+        .apply(asyncGet(URL1), unit(","), asyncGet(URL2));
+    assertEquals(PAGE1 + "," + PAGE2, page.await());
+
+    Promise<Integer> sum = Promises.liftA4((Integer a, Integer b, Integer c, Integer d) -> a + b + c + d)
+        .apply(unit(1), unit(2), unit(3), unit(4));
+    assertEquals(10, (int)sum.await());
+  }
+
+  @Test
+  public void testPromise_withTimeout() {
+    Promise<String> pending = new Promise<String>().withTimeout(50, TimeUnit.MILLISECONDS);
+    pending.await();
+    assertEquals(PromiseTimeoutException.class, pending.getException().getClass());
+
+    assertEquals(PAGE1, asyncGet(URL1).withTimeout(10, TimeUnit.SECONDS).await());
+  }
+
+  @Test
+  public void testPromises_delay() {
+    long start = System.nanoTime();
+    Promise<String> delayed = Promises.delay(100, TimeUnit.MILLISECONDS).fmap((Void nothing) -> "done");
+    assertEquals("done", delayed.await());
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+  }
+
+  @Test
+  public void testPromises_delayContinuationMayBlock() throws Exception {
+    // The continuation of the first delay blocks on a second one, which needs the timer again.
+    Promise<String> outer = Promises.delay(10, TimeUnit.MILLISECONDS).fmap((Void nothing) ->
+        Promises.delay(10, TimeUnit.MILLISECONDS).fmap((Void inner) -> "done").await());
+    assertEquals("done", outer.await(2, TimeUnit.SECONDS));
+
+    Promise<String> pending = new Promise<String>().withTimeout(10, TimeUnit.MILLISECONDS);
+    pending.await();
+    assertEquals(PromiseTimeoutException.class, pending.getException().getClass());
+  }
+
+  @Test
+  public void testPromise_cancel() {
+    final AtomicInteger aborted = new AtomicInteger();
+    SettablePromise<String> source = new SettablePromise<String>() {
+      @Override
+      protected void onCancel() {
+        aborted.incrementAndGet();
+      }
+    };
+    Promise<String> derived = source.fmap(toUpperCase()).bind((String str) -> unit(str + "!"));
+    assertTrue(derived.cancel());
+    assertFalse(derived.cancel());
+    assertEquals(Promise.State.CANCELLED, derived.state());
+    assertEquals(Promise.State.CANCELLED, source.state());
+    assertEquals(1, aborted.get());
+    assertTrue(derived.getException() instanceof CancellationException);
+
+    // Cancelling the promise returned by bind cancels the inner promise once it is known.
+    SettablePromise<String> inner = new SettablePromise<String>();
+    Promise<String> bound = unit("foo").bind((String str) -> inner);
+    bound.cancel();
+    assertEquals(Promise.State.CANCELLED, inner.state());
+
+    final AtomicInteger calls = new AtomicInteger();
+    SettablePromise<String> pending = new SettablePromise<String>();
+    Promise<Integer> mapped = pending.fmap((String str) -> calls.incrementAndGet());
+    Promise<Integer> mappedAgain = mapped.fmap((Integer n) -> n + 1);
+    mapped.cancel();
+    assertEquals(Promise.State.CANCELLED, mappedAgain.state());
+    assertEquals(0, calls.get());
+  }
+
+  @Test
+  public void testPromises_traverse() {
+    final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicInteger maxInFlight = new AtomicInteger();
+    IF1<String, Promise<String>> get = (String url) -> {
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      return asyncGet(url).fmap((String page) -> {
+        inFlight.decrementAndGet();
+        return page;
+      });
+    };
+
+    List<String> urls = asList(URL1, URL2, URL3, URL4, URL5, URL6);
+    List<String> pages = Promises.traverse(get, urls, 2).await();
+    assertEquals(asList(PAGE1, PAGE2, PAGE3, PAGE4, PAGE5, PAGE6), pages);
+    assertEquals(2, maxInFlight.get());
+
+    Promise<List<String>> failed = Promises.traverse(get, 1).apply(asList(URL1, "http://404", URL2));
+    failed.await();
+    assertEquals(Promise.State.FAILED, failed.state());
+
+    List<Integer> numbers = new ArrayList<Integer>();
+    for (int i = 0; i < 100000; i++) {
+      numbers.add(i);
+    }
+    assertEquals(numbers, Promises.traverse((Integer n) -> unit(n), numbers, 4).await());
+  }
+
+  @Test
+  public void testPromises_memoize() throws Exception {
+    final AtomicInteger calls = new AtomicInteger();
+    final SettablePromise<String> pending = new SettablePromise<String>();
+    F1<String, Promise<String>> get = Promises.memoize((String url) -> {
+      calls.incrementAndGet();
+      return url.equals(URL1) ? pending : asyncGet(url);
+    }, 2, 50, TimeUnit.MILLISECONDS);
+
+    // Concurrent calls share one in-flight call.
+    Promise<String> first = get.apply(URL1);
+    assertTrue(first == get.apply(URL1));
+    assertEquals(1, calls.get());
+    pending.set(PAGE1);
+    assertEquals(PAGE1, get.apply(URL1).await());
+    assertEquals(1, calls.get());
+
+    // Failures are not cached.
+    get.apply("http://404").await();
+    get.apply("http://404").await();
+    assertEquals(3, calls.get());
+
+    // The least recently used key is evicted.
+    get.apply(URL2).await();
+    get.apply(URL3).await();
+    get.apply(URL1).await();
+    assertEquals(6, calls.get());
+
+    // Results expire after the ttl.
+    Thread.sleep(100);
+    assertEquals(PAGE3, get.apply(URL3).await());
+    assertEquals(7, calls.get());
+  }
+
+  @Test
+  public void testPromises_batched() {
+    final List<List<String>> batches = new ArrayList<List<String>>();
+    F1<String, Promise<String>> get = Promises.batched((List<String> urls) -> {
+      synchronized (batches) {
+        batches.add(urls);
+      }
+      final List<String> found = new ArrayList<String>();
+      List<Promise<String>> gets = new ArrayList<Promise<String>>();
+      for (String url : urls) {
+        if (!url.equals("http://404")) {
+          found.add(url);
+          gets.add(asyncGet(url));
+        }
+      }
+      return Promises.all(gets).fmap((List<String> contents) -> {
+        Map<String, String> pages = new HashMap<String, String>();
+        for (int i = 0; i < found.size(); i++) {
+          pages.put(found.get(i), contents.get(i));
+        }
+        return pages;
+      });
+    }, 3, 20, TimeUnit.MILLISECONDS);
+
+    // A full batch is issued right away.
+    Promise<String> page1 = get.apply(URL1);
+    Promise<String> page2 = get.apply(URL2);
+    assertTrue(page2 == get.apply(URL2));
+    Promise<String> page3 = get.apply(URL3);
+    assertEquals(asList(asList(URL1, URL2, URL3)), batches);
+    assertEquals(asList(PAGE1, PAGE2, PAGE3), asList(page1.await(), page2.await(), page3.await()));
+
+    // A partial batch is issued after the delay.
+    Promise<String> page4 = get.apply(URL4);
+    Promise<String> missing = get.apply("http://404");
+    assertEquals(PAGE4, page4.await());
+    missing.await();
+    assertEquals(Promise.State.FAILED, missing.state());
+    assertEquals(asList(URL4, "http://404"), batches.get(1));
+  }
+
+  /**
+   * Counts the listener nodes on a pending promise.
+   */
+  private static int countListeners(Promise<?> promise) throws Exception {
+    Field head = Promise.class.getDeclaredField("head");
+    head.setAccessible(true);
+    int count = 0;
+    for (Object node = head.get(promise); node != null; count++) {
+      Field next = node.getClass().getDeclaredField("next");
+      next.setAccessible(true);
+      node = next.get(node);
+    }
+    return count;
+  }
+
+  private static Promise<Integer> countUp(int from, final int to) {
+    return unit(from).bind((Integer n) -> n < to ? countUp(n + 1, to) : unit(n));
+  }
+
   private static HttpPromise asyncGet(String url) {
     return new HttpPromise(url);
   }
 
+  /**
+   * Promise which is completed by the test.
+   */
+  private static class SettablePromise<T> extends Promise<T> {
+    public void set(T value) {
+      notifySuccess(value);
+    }
+  }
+
   /**
    * Fake HTTP promise for test purpose. It either returns a pre-configured web
    * page asynchronously or throws a 404 NOT FOUND exception.
@@ -0,0 +1,57 @@
+package fava;
+
+import static fava.Composing._;
+import static fava.data.Strings.join;
+import static fava.data.Strings.split;
+import static fava.data.Strings.toUpperCase;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import fava.Currying.F1;
+import fava.data.Seq;
+import fava.data.Seqs;
+
+public class SeqTest {
+  @Test
+  public void testCompose() {
+    F1<String, String> f = _(
+        split(" "),
+        Seqs.<String>seq(),
+        Seqs.filter((String word) -> word.length() > 2),
+        Seqs.map(toUpperCase()),
+        Seqs.<String>toList(),
+        join("_"));
+    assertEquals("LOVE_PROGRAMMING_JAVA", f.apply("I love programming in Java"));
+  }
+
+  @Test
+  public void testLazy() {
+    final int[] calls = new int[1];
+    Seq<Integer> squares = Seq.iterate(1, (Integer n) -> n + 1).map((Integer n) -> {
+      calls[0]++;
+      return n * n;
+    });
+    assertEquals(0, calls[0]);
+    assertEquals(Arrays.asList(1, 4, 9), squares.take(3).toList());
+    assertEquals(3, calls[0]);
+    assertTrue(squares.exists((Integer n) -> n > 50));
+    assertEquals(3 + 8, calls[0]);
+  }
+
+  @Test
+  public void testFlatMap() {
+    Seq<Integer> seq = Seq.of(1, 2, 3).flatMap((Integer n) -> Arrays.asList(n, -n)).filter((Integer n) -> n != -2);
+    assertEquals(Arrays.asList(1, -1, 2, 3, -3), seq.toList());
+    assertEquals(2, (int)seq.foldl((Integer n, Integer acc) -> n + acc, 0));
+    assertFalse(Seq.<Integer>of().exists((Integer n) -> true));
+
+    List<Integer> bound = Seq.of(1, 2).bind((Integer n) -> Seq.of(n, n * 10)).toList();
+    assertEquals(Arrays.asList(1, 10, 2, 20), bound);
+  }
+}